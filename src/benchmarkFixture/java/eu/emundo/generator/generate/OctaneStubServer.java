@@ -0,0 +1,431 @@
+package eu.emundo.generator.generate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <p>
+ * In-process HTTP stub of the Octane REST endpoints used by the generator:
+ * sign in and sign out, {@code metadata/entities}, {@code metadata/fields},
+ * {@code list_nodes} with the query syntax of the generator including paging,
+ * and {@code phases}. Any shared space and workspace id is accepted.
+ * </p>
+ * <p>
+ * The content is served from a metadata snapshot, either recorded from a real
+ * server with {@code recordSnapshot} or synthesized by
+ * {@link SyntheticMetadata} in any size. Every request can be delayed by a
+ * fixed latency, the requests are counted per endpoint and are answered
+ * concurrently, so request batching, fetch parallelism and caching can be
+ * measured without a network.
+ * </p>
+ * <p>
+ * Run as application to point the plugin at the stub:
+ * {@code OctaneStubServer <snapshotFile|syntheticEntityCount> [port] [latencyMillis]}
+ * </p>
+ */
+public final class OctaneStubServer implements AutoCloseable {
+
+	public static final String SIGN_IN = "sign_in";
+	public static final String SIGN_OUT = "sign_out";
+	public static final String ENTITY_METADATA = "metadata/entities";
+	public static final String FIELD_METADATA = "metadata/fields";
+	public static final String LIST_NODES = "list_nodes";
+	public static final String PHASES = "phases";
+	public static final String UNKNOWN = "unknown";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OctaneStubServer.class);
+
+	private static final Pattern API_PATH = Pattern.compile("/api/shared_spaces/\\d+/workspaces/\\d+/(.+)");
+	private static final Pattern QUOTED_VALUE = Pattern.compile("'((?:[^'\\\\]|\\\\.)*)'");
+	private static final Pattern NULL_LIST_ROOT = Pattern.compile("list_root EQ \\{?null\\}?");
+	private static final Pattern LIST_ROOT_ID = Pattern.compile("list_root EQ \\{id EQ '([^']*)'\\}");
+	private static final Pattern ACTIVITY_LEVEL_BELOW = Pattern.compile("activity_level LT (\\d+)");
+
+	private final JsonArray entities = new JsonArray();
+	private final Map<String, JsonArray> fields = new HashMap<>();
+	private final List<JsonObject> listRootNodes = new ArrayList<>();
+	private final List<JsonObject> listNodes = new ArrayList<>();
+	private final List<JsonObject> phases = new ArrayList<>();
+	private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+	private volatile long latencyMillis;
+	private HttpServer httpServer;
+	private ExecutorService executorService;
+
+	/**
+	 * Serves the given snapshot file
+	 *
+	 * @param snapshotFile
+	 *            A snapshot written by {@link MetadataSnapshot#write(File)}
+	 * @throws IOException
+	 *             A problem reading the snapshot
+	 */
+	public OctaneStubServer(final File snapshotFile) throws IOException {
+		final JsonObject snapshot;
+		try (final Reader reader = Files.newBufferedReader(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+			snapshot = new JsonParser().parse(reader).getAsJsonObject();
+		}
+		for (final JsonElement entity : snapshot.getAsJsonArray("entities")) {
+			entities.add(toEntityMetadata(entity.getAsJsonObject()));
+		}
+		for (final Map.Entry<String, JsonElement> entityFields : snapshot.getAsJsonObject("fields").entrySet()) {
+			final JsonArray wireFields = new JsonArray();
+			for (final JsonElement field : entityFields.getValue().getAsJsonArray()) {
+				wireFields.add(withType(field.getAsJsonObject(), "field_metadata"));
+			}
+			fields.put(entityFields.getKey(), wireFields);
+		}
+		snapshot.getAsJsonArray("listRootNodes").forEach(listRootNode -> listRootNodes.add(withType(listRootNode.getAsJsonObject(), "list_node")));
+		snapshot.getAsJsonArray("listNodes").forEach(listNode -> listNodes.add(withType(listNode.getAsJsonObject(), "list_node")));
+		snapshot.getAsJsonArray("phases").forEach(phase -> phases.add(withType(phase.getAsJsonObject(), "phase")));
+	}
+
+	/**
+	 * Creates a stub serving a {@link SyntheticMetadata} schema
+	 *
+	 * @param syntheticEntityCount
+	 *            The number of synthetic entities on top of the fixed core
+	 * @return The stub, not started yet
+	 * @throws IOException
+	 *             A problem with the temporary snapshot file
+	 */
+	public static OctaneStubServer synthetic(final int syntheticEntityCount) throws IOException {
+		final File snapshotFile = File.createTempFile("synthetic-metadata", ".json");
+		try {
+			SyntheticMetadata.create(syntheticEntityCount).write(snapshotFile);
+			return new OctaneStubServer(snapshotFile);
+		} finally {
+			Files.delete(snapshotFile.toPath());
+		}
+	}
+
+	public static void main(final String[] args) throws IOException {
+		final File snapshotFile = new File(args[0]);
+		final OctaneStubServer stubServer = snapshotFile.isFile() ? new OctaneStubServer(snapshotFile) : synthetic(Integer.parseInt(args[0]));
+		stubServer.setLatencyMillis(args.length > 2 ? Long.parseLong(args[2]) : 0).start(args.length > 1 ? Integer.parseInt(args[1]) : 0);
+		LOGGER.info("Octane stub listening on {}, accepting any client id, secret, shared space and workspace", stubServer.getServer());
+	}
+
+	/**
+	 * Delays every response, the requests are still answered concurrently
+	 *
+	 * @param latencyMillis
+	 *            The delay in milliseconds
+	 * @return this
+	 */
+	public OctaneStubServer setLatencyMillis(final long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+		return this;
+	}
+
+	/**
+	 * Starts listening on localhost
+	 *
+	 * @param port
+	 *            The port or 0 for any free port
+	 * @return this
+	 * @throws IOException
+	 *             A problem opening the port
+	 */
+	public OctaneStubServer start(final int port) throws IOException {
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		executorService = Executors.newCachedThreadPool();
+		httpServer.setExecutor(executorService);
+		httpServer.createContext("/", this::handle);
+		httpServer.start();
+		return this;
+	}
+
+	/**
+	 * @return The server including the protocol and port, as configured for
+	 *         the plugin
+	 */
+	public String getServer() {
+		return "http://localhost:" + httpServer.getAddress().getPort();
+	}
+
+	/**
+	 * @param endpoint
+	 *            One of the endpoint constants
+	 * @return The number of requests to the endpoint since the start or the
+	 *         last reset
+	 */
+	public int getRequestCount(final String endpoint) {
+		final AtomicInteger requestCount = requestCounts.get(endpoint);
+		return requestCount == null ? 0 : requestCount.get();
+	}
+
+	/**
+	 * @return The number of requests to all endpoints since the start or the
+	 *         last reset
+	 */
+	public int getRequestCount() {
+		return requestCounts.values().stream().mapToInt(AtomicInteger::get).sum();
+	}
+
+	public void resetRequestCounts() {
+		requestCounts.clear();
+	}
+
+	@Override
+	public void close() {
+		if (httpServer != null) {
+			httpServer.stop(0);
+			executorService.shutdownNow();
+			httpServer = null;
+		}
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		try (final InputStream requestBody = exchange.getRequestBody()) {
+			while (requestBody.read() != -1) {
+				// the credentials are not checked
+			}
+		}
+		if (latencyMillis > 0) {
+			try {
+				Thread.sleep(latencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				exchange.close();
+				return;
+			}
+		}
+
+		final String path = exchange.getRequestURI().getPath();
+		if (path.endsWith("/authentication/sign_in")) {
+			count(SIGN_IN);
+			exchange.getResponseHeaders().add("Set-Cookie", "LWSSO_COOKIE_KEY=octane-stub; Path=/; HttpOnly");
+			respond(exchange, 200, "{}");
+			return;
+		}
+		if (path.endsWith("/authentication/sign_out")) {
+			count(SIGN_OUT);
+			respond(exchange, 200, "{}");
+			return;
+		}
+		final Matcher apiPath = API_PATH.matcher(path);
+		final String collection = apiPath.matches() ? apiPath.group(1) : "";
+		final Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+		final String query = parameters.getOrDefault("query", "");
+		switch (collection) {
+		case ENTITY_METADATA:
+			count(ENTITY_METADATA);
+			respond(exchange, 200, page(entityMetadata(quotedValues(query, "name")), parameters));
+			break;
+		case FIELD_METADATA:
+			count(FIELD_METADATA);
+			respond(exchange, 200, page(fieldMetadata(quotedValues(query, "entity_name")), parameters));
+			break;
+		case LIST_NODES:
+			count(LIST_NODES);
+			respond(exchange, 200, page(listNodes(query), parameters));
+			break;
+		case PHASES:
+			count(PHASES);
+			respond(exchange, 200, page(new ArrayList<>(phases), parameters));
+			break;
+		default:
+			count(UNKNOWN);
+			final JsonObject error = new JsonObject();
+			error.addProperty("error_code", "platform.not_found");
+			error.addProperty("description", "The Octane stub does not serve " + path);
+			respond(exchange, 404, error.toString());
+			break;
+		}
+	}
+
+	private List<JsonObject> entityMetadata(final Set<String> names) {
+		final List<JsonObject> result = new ArrayList<>();
+		for (final JsonElement entity : entities) {
+			if (names.isEmpty() || names.contains(entity.getAsJsonObject().get("name").getAsString())) {
+				result.add(entity.getAsJsonObject());
+			}
+		}
+		return result;
+	}
+
+	private List<JsonObject> fieldMetadata(final Set<String> entityNames) {
+		final List<JsonObject> result = new ArrayList<>();
+		// sorted, so that the order does not depend on the hash map
+		new TreeMap<>(fields).forEach((entityName, entityFields) -> {
+			if (entityNames.isEmpty() || entityNames.contains(entityName)) {
+				entityFields.forEach(field -> result.add(field.getAsJsonObject()));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Supports the queries sent by the generator: the root nodes
+	 * ({@code list_root EQ {null}}), the nodes of one list
+	 * ({@code list_root EQ {id EQ '...'}}) and all nodes, each optionally
+	 * limited by {@code activity_level LT n}
+	 */
+	private List<JsonObject> listNodes(final String query) {
+		if (NULL_LIST_ROOT.matcher(query).find()) {
+			return filterActivityLevel(listRootNodes, query);
+		}
+		final Matcher listRootId = LIST_ROOT_ID.matcher(query);
+		final List<JsonObject> result = new ArrayList<>();
+		if (listRootId.find()) {
+			final String rootId = listRootId.group(1);
+			for (final JsonObject listNode : listNodes) {
+				final JsonElement listRoot = listNode.get("list_root");
+				if (listRoot != null && listRoot.isJsonObject() && rootId.equals(listRoot.getAsJsonObject().get("id").getAsString())) {
+					result.add(listNode);
+				}
+			}
+		} else {
+			result.addAll(listNodes);
+		}
+		return filterActivityLevel(result, query);
+	}
+
+	private static List<JsonObject> filterActivityLevel(final List<JsonObject> models, final String query) {
+		final Matcher activityLevelBelow = ACTIVITY_LEVEL_BELOW.matcher(query);
+		if (!activityLevelBelow.find()) {
+			return new ArrayList<>(models);
+		}
+		final long maximum = Long.parseLong(activityLevelBelow.group(1));
+		final List<JsonObject> result = new ArrayList<>();
+		for (final JsonObject model : models) {
+			if (!model.has("activity_level") || model.get("activity_level").getAsLong() < maximum) {
+				result.add(model);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Applies {@code order_by}, {@code offset} and {@code limit} and wraps the
+	 * models like the server does
+	 */
+	private static String page(final List<JsonObject> models, final Map<String, String> parameters) {
+		final String orderBy = parameters.get("order_by");
+		if (orderBy != null && !orderBy.isEmpty()) {
+			final String field = orderBy.startsWith("-") ? orderBy.substring(1) : orderBy;
+			final Comparator<JsonObject> comparator = Comparator.comparing(model -> model.has(field) ? model.get(field).getAsString() : "");
+			models.sort(orderBy.startsWith("-") ? comparator.reversed() : comparator);
+		}
+		final int offset = Math.min(Integer.parseInt(parameters.getOrDefault("offset", "0")), models.size());
+		final int limit = Integer.parseInt(parameters.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE)));
+		final JsonArray data = new JsonArray();
+		models.stream().skip(offset).limit(limit).forEach(data::add);
+
+		final JsonObject response = new JsonObject();
+		response.addProperty("total_count", models.size());
+		response.add("data", data);
+		response.addProperty("exceeds_total_count", false);
+		return response.toString();
+	}
+
+	/**
+	 * The snapshot stores the entity metadata as serialized by Gson, the
+	 * server sends the features without their class and the label flag in
+	 * snake case
+	 */
+	private static JsonObject toEntityMetadata(final JsonObject entity) {
+		final JsonObject entityMetadata = new JsonObject();
+		entityMetadata.addProperty("type", "entity_metadata");
+		for (final Map.Entry<String, JsonElement> entry : entity.entrySet()) {
+			if (entry.getKey().equals("canModifyLabel")) {
+				entityMetadata.add("can_modify_label", entry.getValue());
+			} else if (entry.getKey().equals("features")) {
+				final JsonArray features = new JsonArray();
+				for (final JsonElement feature : entry.getValue().getAsJsonArray()) {
+					features.add(feature.getAsJsonObject().get("data"));
+				}
+				entityMetadata.add("features", features);
+			} else {
+				entityMetadata.add(entry.getKey(), entry.getValue());
+			}
+		}
+		return entityMetadata;
+	}
+
+	private static JsonObject withType(final JsonObject model, final String type) {
+		if (!model.has("type")) {
+			model.addProperty("type", type);
+		}
+		return model;
+	}
+
+	/**
+	 * The quoted values of an {@code EQ} or {@code IN} statement of the given
+	 * field, empty if the query does not restrict the field
+	 */
+	private static Set<String> quotedValues(final String query, final String field) {
+		final Set<String> values = new HashSet<>();
+		final Matcher statement = Pattern.compile("(?<![\\w.])" + Pattern.quote(field) + " (?:EQ|IN) ([^;)}]*)").matcher(query);
+		while (statement.find()) {
+			final Matcher value = QUOTED_VALUE.matcher(statement.group(1));
+			while (value.find()) {
+				values.add(value.group(1).replace("\\'", "'"));
+			}
+		}
+		return values;
+	}
+
+	private static Map<String, String> parameters(final String rawQuery) throws UnsupportedEncodingException {
+		final Map<String, String> parameters = new HashMap<>();
+		if (rawQuery == null) {
+			return parameters;
+		}
+		for (final String parameter : rawQuery.split("&")) {
+			final int separator = parameter.indexOf('=');
+			final String name = URLDecoder.decode(separator < 0 ? parameter : parameter.substring(0, separator), "UTF-8");
+			String value = separator < 0 ? "" : URLDecoder.decode(parameter.substring(separator + 1), "UTF-8");
+			// the query is sent in double quotes
+			if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+				value = value.substring(1, value.length() - 1);
+			}
+			parameters.put(name, value);
+		}
+		return parameters;
+	}
+
+	private void count(final String endpoint) {
+		requestCounts.computeIfAbsent(endpoint, k -> new AtomicInteger()).incrementAndGet();
+	}
+
+	private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+		final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (final OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,264 @@
+package eu.emundo.generator.generate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+/**
+ * <p>
+ * Builds a synthetic {@link MetadataSnapshot} without a server. Besides a fixed
+ * core of work items (defect, story, work_item, release) with lists and phases
+ * it contains the given number of synthetic entities. Every synthetic entity
+ * has list fields, polymorphic multi references and several polymorphic
+ * required references, every tenth one more than fit into constructors.
+ * </p>
+ * <p>
+ * Run as application to generate the models of the fixture:
+ * {@code SyntheticMetadata <outputDirectory> <syntheticEntityCount>}
+ * </p>
+ */
+public final class SyntheticMetadata {
+
+	private static final String REST_FEATURE = "com.hpe.adm.nga.sdk.metadata.features.RestFeature";
+	private static final String SUB_TYPES_OF_FEATURE = "com.hpe.adm.nga.sdk.metadata.features.SubTypesOfFeature";
+	private static final int NODES_PER_LIST = 10;
+
+	private final JsonArray entities = new JsonArray();
+	private final JsonObject fields = new JsonObject();
+	private final JsonArray listRootNodes = new JsonArray();
+	private final JsonArray listNodes = new JsonArray();
+	private final JsonArray phases = new JsonArray();
+
+	private SyntheticMetadata() {
+	}
+
+	/**
+	 * Creates the snapshot
+	 *
+	 * @param syntheticEntityCount
+	 *            The number of synthetic entities on top of the fixed core
+	 * @return The snapshot
+	 * @throws IOException
+	 *             A problem with the temporary snapshot file
+	 */
+	public static MetadataSnapshot create(final int syntheticEntityCount) throws IOException {
+		final SyntheticMetadata syntheticMetadata = new SyntheticMetadata();
+		syntheticMetadata.addCore();
+		for (int i = 0; i < syntheticEntityCount; ++i) {
+			syntheticMetadata.addSyntheticEntity(i, syntheticEntityCount);
+		}
+		return syntheticMetadata.toSnapshot();
+	}
+
+	public static void main(final String[] args) throws IOException {
+		final File outputDirectory = new File(args[0]);
+		final int syntheticEntityCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		new GenerateModels(outputDirectory, null).generate(create(syntheticEntityCount));
+	}
+
+	private void addCore() {
+		addList("severity", "Severity", "Low", "Medium", "High", "Very High", "Urgent");
+		addList("priority", "Priority", "Low", "Medium", "High");
+		addPhases("defect", "New", "Opened", "Fixed", "Closed");
+		addPhases("story", "New", "In Progress", "Done");
+
+		addEntity("work_item_root", "Work Item Root", "work_items_root", null, "GET");
+		addFields("work_item_root", commonFields("work_item_root"));
+		addEntity("work_item", "Work Item", "work_items", null, "GET", "PUT", "DELETE");
+		addFields("work_item", commonFields("work_item"));
+		addEntity("release", "Release", "releases", null, "GET", "POST", "PUT", "DELETE");
+		addFields("release", commonFields("release"));
+
+		for (final String workItem : new String[] { "defect", "story" }) {
+			addEntity(workItem, workItem, workItem.equals("defect") ? "defects" : "stories", "work_item", "GET", "POST", "PUT", "DELETE");
+			final JsonArray workItemFields = commonFields(workItem);
+			workItemFields.add(field(workItem, "phase", "reference", true, true, reference(false, "phase")));
+			workItemFields.add(field(workItem, "parent", "reference", true, true, reference(false, "defect", "story")));
+			workItemFields.add(field(workItem, "release", "reference", false, true, reference(false, "release")));
+			workItemFields.add(field(workItem, "owner", "reference", false, true, reference(false, "workspace_user")));
+			workItemFields.add(field(workItem, "linked_items", "reference", false, true, reference(true, "defect", "story")));
+			workItemFields.add(field(workItem, "priority", "reference", false, true, listReference(false, "priority")));
+			if (workItem.equals("defect")) {
+				workItemFields.add(field(workItem, "severity", "reference", false, true, listReference(false, "severity")));
+			}
+			addFields(workItem, workItemFields);
+		}
+	}
+
+	private void addSyntheticEntity(final int index, final int syntheticEntityCount) {
+		final String name = "synthetic_" + index;
+		if (index % 5 == 0) {
+			final String[] nodeNames = new String[NODES_PER_LIST];
+			for (int i = 0; i < NODES_PER_LIST; ++i) {
+				nodeNames[i] = "Value " + i;
+			}
+			addList("synthetic_list_" + index, "Synthetic List " + index, nodeNames);
+		}
+		addEntity(name, "Synthetic " + index, name + "s", null, "GET", "POST", "PUT", "DELETE");
+		final JsonArray syntheticFields = commonFields(name);
+		syntheticFields.add(field(name, "category", "reference", false, true, listReference(false, "synthetic_list_" + (index / 5 * 5))));
+		syntheticFields.add(field(name, "tags", "reference", false, true, listReference(true, "synthetic_list_" + (index / 5 * 5))));
+		syntheticFields.add(field(name, "related", "reference", false, true,
+				reference(true, "defect", "story", "synthetic_" + ((index + 1) % syntheticEntityCount))));
+		syntheticFields.add(field(name, "owner_a", "reference", true, true, reference(false, "defect", "story", "work_item")));
+		syntheticFields.add(field(name, "owner_b", "reference", true, true, reference(false, "defect", "story")));
+		if (index % 10 == 9) {
+			// too many combinations for constructors, the model gets a builder
+			for (final String ownerName : new String[] { "owner_c", "owner_d", "owner_e" }) {
+				syntheticFields.add(field(name, ownerName, "reference", true, true, reference(false, "defect", "story", "work_item")));
+			}
+		}
+		addFields(name, syntheticFields);
+	}
+
+	private JsonArray commonFields(final String entityName) {
+		final JsonArray commonFields = new JsonArray();
+		commonFields.add(field(entityName, "id", "string", false, false, null));
+		commonFields.add(field(entityName, "name", "string", true, true, null));
+		commonFields.add(field(entityName, "description", "memo", false, true, null));
+		commonFields.add(field(entityName, "creation_time", "date_time", false, false, null));
+		commonFields.add(field(entityName, "estimated_hours", "integer", false, true, null));
+		commonFields.add(field(entityName, "progress", "float", false, true, null));
+		commonFields.add(field(entityName, "blocked", "boolean", false, true, null));
+		return commonFields;
+	}
+
+	private void addEntity(final String name, final String label, final String url, final String subTypeOf, final String... methods) {
+		final JsonArray features = new JsonArray();
+		final JsonObject restFeature = new JsonObject();
+		restFeature.addProperty("name", "rest");
+		restFeature.addProperty("url", url);
+		final JsonArray methodArray = new JsonArray();
+		for (final String method : methods) {
+			methodArray.add(method);
+		}
+		restFeature.add("methods", methodArray);
+		features.add(feature(REST_FEATURE, restFeature));
+		if (subTypeOf != null) {
+			final JsonObject subTypesOfFeature = new JsonObject();
+			subTypesOfFeature.addProperty("name", "subtype_of");
+			subTypesOfFeature.addProperty("type", subTypeOf);
+			features.add(feature(SUB_TYPES_OF_FEATURE, subTypesOfFeature));
+		}
+
+		final JsonObject entity = new JsonObject();
+		entity.addProperty("name", name);
+		entity.addProperty("label", label);
+		entity.addProperty("canModifyLabel", false);
+		entity.add("features", features);
+		entities.add(entity);
+	}
+
+	private static JsonObject feature(final String className, final JsonObject data) {
+		final JsonObject feature = new JsonObject();
+		feature.addProperty("class", className);
+		feature.add("data", data);
+		return feature;
+	}
+
+	private void addFields(final String entityName, final JsonArray entityFields) {
+		fields.add(entityName, entityFields);
+	}
+
+	private static JsonObject field(final String entityName, final String name, final String fieldType, final boolean required, final boolean editable,
+			final JsonObject fieldTypeData) {
+		final JsonObject field = new JsonObject();
+		field.addProperty("name", name);
+		field.addProperty("label", name.replace('_', ' '));
+		field.addProperty("description", "");
+		field.addProperty("entity_name", entityName);
+		field.addProperty("field_type", fieldType);
+		field.addProperty("required", required);
+		field.addProperty("editable", editable);
+		field.addProperty("filterable", true);
+		field.addProperty("sortable", !fieldType.equals("reference"));
+		field.addProperty("max_length", 255);
+		field.addProperty("min_value", Integer.MIN_VALUE);
+		field.addProperty("max_value", Integer.MAX_VALUE);
+		field.add("field_type_data", fieldTypeData == null ? JsonNull.INSTANCE : fieldTypeData);
+		return field;
+	}
+
+	private static JsonObject reference(final boolean multiple, final String... types) {
+		final JsonArray targets = new JsonArray();
+		for (final String type : types) {
+			final JsonObject target = new JsonObject();
+			target.addProperty("type", type);
+			targets.add(target);
+		}
+		final JsonObject fieldTypeData = new JsonObject();
+		fieldTypeData.addProperty("multiple", multiple);
+		fieldTypeData.add("targets", targets);
+		return fieldTypeData;
+	}
+
+	private static JsonObject listReference(final boolean multiple, final String listName) {
+		final JsonObject target = new JsonObject();
+		target.addProperty("type", "list_node");
+		target.addProperty("logical_name", "list_node." + listName);
+		final JsonArray targets = new JsonArray();
+		targets.add(target);
+		final JsonObject fieldTypeData = new JsonObject();
+		fieldTypeData.addProperty("multiple", multiple);
+		fieldTypeData.add("targets", targets);
+		return fieldTypeData;
+	}
+
+	private void addList(final String logicalName, final String label, final String... nodeNames) {
+		final String rootId = "list_node." + logicalName;
+		final JsonObject rootNode = new JsonObject();
+		rootNode.addProperty("activity_level", 0);
+		rootNode.addProperty("id", rootId);
+		rootNode.addProperty("logical_name", rootId);
+		rootNode.addProperty("name", label);
+		listRootNodes.add(rootNode);
+
+		for (final String nodeName : nodeNames) {
+			final JsonObject listRoot = new JsonObject();
+			listRoot.addProperty("id", rootId);
+			listRoot.addProperty("type", "list_node");
+
+			final String id = rootId + "." + nodeName.toLowerCase().replace(' ', '_');
+			final JsonObject listNode = new JsonObject();
+			listNode.addProperty("activity_level", 0);
+			listNode.addProperty("id", id);
+			listNode.add("list_root", listRoot);
+			listNode.addProperty("logical_name", id);
+			listNode.addProperty("name", nodeName);
+			listNodes.add(listNode);
+		}
+	}
+
+	private void addPhases(final String entityName, final String... phaseNames) {
+		for (final String phaseName : phaseNames) {
+			final JsonObject phase = new JsonObject();
+			phase.addProperty("entity", entityName);
+			phase.addProperty("id", "phase." + entityName + "." + phaseName.toLowerCase().replace(' ', '_'));
+			phase.addProperty("name", phaseName);
+			phases.add(phase);
+		}
+	}
+
+	private MetadataSnapshot toSnapshot() throws IOException {
+		final JsonObject snapshot = new JsonObject();
+		snapshot.addProperty("version", MetadataSnapshot.VERSION);
+		snapshot.add("entities", entities);
+		snapshot.add("fields", fields);
+		snapshot.add("listRootNodes", listRootNodes);
+		snapshot.add("listNodes", listNodes);
+		snapshot.add("phases", phases);
+
+		final File snapshotFile = File.createTempFile("synthetic-metadata", ".json");
+		try {
+			Files.write(snapshotFile.toPath(), snapshot.toString().getBytes(StandardCharsets.UTF_8));
+			return MetadataSnapshot.read(snapshotFile);
+		} finally {
+			Files.delete(snapshotFile.toPath());
+		}
+	}
+}
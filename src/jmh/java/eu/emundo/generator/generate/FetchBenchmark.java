@@ -0,0 +1,69 @@
+package eu.emundo.generator.generate;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures the metadata fetch end to end against an {@link OctaneStubServer}
+ * serving a {@link SyntheticMetadata} schema, with a fixed latency per request
+ * to make the number of requests and their concurrency visible.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class FetchBenchmark {
+
+	private static final long SHARED_SPACE = 1001;
+	private static final long WORK_SPACE = 1002;
+
+	@Param({ "100", "1000" })
+	private int syntheticEntityCount;
+
+	@Param({ "0", "5" })
+	private long latencyMillis;
+
+	@Param({ "1", "8" })
+	private int fetchParallelism;
+
+	@Param({ "false", "true" })
+	private boolean bulkListFetch;
+
+	private OctaneStubServer stubServer;
+	private MetadataFetcher metadataFetcher;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		stubServer = OctaneStubServer.synthetic(syntheticEntityCount).setLatencyMillis(latencyMillis).start(0);
+		metadataFetcher = new MetadataFetcher(null).setFetchParallelism(fetchParallelism).setBulkListFetch(bulkListFetch).setQuiet(true);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		stubServer.close();
+	}
+
+	@Benchmark
+	public MetadataSnapshot fetch() throws IOException, GeneralSecurityException {
+		return metadataFetcher.fetch("client", "secret", stubServer.getServer(), SHARED_SPACE, WORK_SPACE, false, false);
+	}
+}
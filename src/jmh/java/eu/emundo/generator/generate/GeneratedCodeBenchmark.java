@@ -0,0 +1,105 @@
+package eu.emundo.generator.generate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hpe.adm.nga.sdk.enums.Phases;
+import com.hpe.adm.nga.sdk.enums.lists.SEVERITY;
+import com.hpe.adm.nga.sdk.model.DefectEntityModel;
+import com.hpe.adm.nga.sdk.model.EntityModel;
+import com.hpe.adm.nga.sdk.model.MultiReferenceFieldModel;
+import com.hpe.adm.nga.sdk.model.ReferenceFieldModel;
+import com.hpe.adm.nga.sdk.model.StringFieldModel;
+
+/**
+ * <p>
+ * Measures the hot paths of the code generated from the
+ * {@link SyntheticMetadata} fixture: the list and phase enum lookups, the
+ * typed getters and the mapping of multi references to typed models.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GeneratedCodeBenchmark {
+
+	private static final int LINKED_ITEMS = 20;
+
+	private EntityModel severityEntityModel;
+	private EntityModel phaseEntityModel;
+	private DefectEntityModel defectEntityModel;
+
+	@Setup
+	public void setUp() {
+		severityEntityModel = SEVERITY.values()[SEVERITY.values().length - 1].getAsEntityModel();
+		phaseEntityModel = Phases.DefectPhase.values()[0].getAsEntityModel();
+
+		final List<EntityModel> linkedItems = new ArrayList<>(LINKED_ITEMS);
+		for (int i = 0; i < LINKED_ITEMS; ++i) {
+			final EntityModel linkedItem = new EntityModel();
+			linkedItem.setValue(new StringFieldModel("id", String.valueOf(2000 + i)));
+			linkedItem.setValue(new StringFieldModel("type", i % 2 == 0 ? "defect" : "story"));
+			linkedItems.add(linkedItem);
+		}
+
+		final EntityModel wrappedEntityModel = new EntityModel();
+		wrappedEntityModel.setValue(new StringFieldModel("id", "1001"));
+		wrappedEntityModel.setValue(new StringFieldModel("type", "defect"));
+		wrappedEntityModel.setValue(new StringFieldModel("name", "Synthetic defect"));
+		wrappedEntityModel.setValue(new ReferenceFieldModel("severity", severityEntityModel));
+		wrappedEntityModel.setValue(new ReferenceFieldModel("phase", phaseEntityModel));
+		wrappedEntityModel.setValue(new MultiReferenceFieldModel("linked_items", linkedItems));
+		defectEntityModel = new DefectEntityModel(wrappedEntityModel);
+	}
+
+	@Benchmark
+	public SEVERITY listGetFromEntityModel() {
+		return SEVERITY.getFromEntityModel(severityEntityModel);
+	}
+
+	@Benchmark
+	public SEVERITY listGetFromValueIgnoringCase() {
+		return SEVERITY.getListNodeFromValue("very high");
+	}
+
+	@Benchmark
+	public Phases.DefectPhase phaseGetFromEntityModel() {
+		return Phases.DefectPhase.getFromEntityModel(phaseEntityModel);
+	}
+
+	@Benchmark
+	public String getName() {
+		return defectEntityModel.getName();
+	}
+
+	@Benchmark
+	public SEVERITY getSeverity() {
+		return defectEntityModel.getSeverity();
+	}
+
+	@Benchmark
+	public Phases.DefectPhase getPhase() {
+		return defectEntityModel.getPhase();
+	}
+
+	@Benchmark
+	public Collection<?> getLinkedItems() {
+		return defectEntityModel.getLinkedItems();
+	}
+}
@@ -0,0 +1,105 @@
+package eu.emundo.generator.generate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures the generation of the models from a {@link SyntheticMetadata}
+ * snapshot. The generation hash is removed before every invocation, so every
+ * invocation emits all files. As the output directory is kept, files are
+ * only compared and not written again, like in an incremental build.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GenerationBenchmark {
+
+	@Param({ "10", "100", "500" })
+	private int syntheticEntityCount;
+
+	@Param({ CodeEmitter.VELOCITY, CodeEmitter.JAVA })
+	private String emitter;
+
+	private MetadataSnapshot snapshot;
+	private File outputDirectory;
+	private GenerateModels generateModels;
+	private TreeMap<String, List<String>> collectedReferences;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		snapshot = SyntheticMetadata.create(syntheticEntityCount);
+		outputDirectory = Files.createTempDirectory("generation-benchmark").toFile();
+		generateModels = new GenerateModels(outputDirectory, null).setEmitter(emitter);
+
+		// required fields with several possible types each, 54 combinations
+		collectedReferences = new TreeMap<>();
+		collectedReferences.put("name", Arrays.asList("String"));
+		collectedReferences.put("owner_a", Arrays.asList("DefectEntityModel", "StoryEntityModel", "WorkItemEntityModel"));
+		collectedReferences.put("owner_b", Arrays.asList("DefectEntityModel", "StoryEntityModel"));
+		collectedReferences.put("owner_c", Arrays.asList("DefectEntityModel", "StoryEntityModel", "EntityModel"));
+		collectedReferences.put("phase", Arrays.asList("com.hpe.adm.nga.sdk.enums.Phases.DefectPhase", "EntityModel", "String"));
+	}
+
+	@Setup(Level.Invocation)
+	public void forgetLastGeneration() throws IOException {
+		Files.deleteIfExists(new File(outputDirectory, GenerateModels.GENERATION_HASH_FILE).toPath());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try (final Stream<Path> paths = Files.walk(outputDirectory.toPath())) {
+			final List<Path> sortedPaths = new ArrayList<>();
+			paths.sorted(Comparator.reverseOrder()).forEach(sortedPaths::add);
+			for (final Path path : sortedPaths) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Benchmark
+	public void generate() throws IOException {
+		generateModels.generate(snapshot);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<List<String[]>> expandCollectedReferences() {
+		final List<List<String[]>> requiredFields = new ArrayList<>();
+		GenerateModels.expandCollectedReferences(collectedReferences, new int[collectedReferences.size()], 0, requiredFields);
+		return requiredFields;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<List<String[]>> sortRequiredFields() {
+		return SortHelper.sortRequiredFieldsByFieldName(expandCollectedReferences(), "parent");
+	}
+}
@@ -0,0 +1,62 @@
+package eu.emundo.gradle.octane.generator
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.InvalidUserDataException
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.Classpath
+import org.gradle.api.tasks.Internal
+import org.gradle.workers.WorkQueue
+import org.gradle.workers.WorkerExecutor
+
+import javax.inject.Inject
+
+/**
+ * Base class of the tasks which run the Octane SDK and Velocity in a Gradle
+ * worker. With classloader or process isolation these libraries are loaded from
+ * the generator classpath instead of the build script classloader of the daemon.
+ */
+abstract class AbstractOctaneWorkerTask extends DefaultTask {
+
+    /**
+     * The classpath of the isolated worker, not used without isolation
+     */
+    @Classpath
+    abstract ConfigurableFileCollection getGeneratorClasspath()
+
+    /**
+     * One of none, classloader or process
+     */
+    @Internal
+    abstract Property<String> getIsolation()
+
+    /**
+     * Where the timings and counters of the run are written to, named after
+     * the task
+     */
+    @Internal
+    abstract DirectoryProperty getReportDirectory()
+
+    /**
+     * Only log the summary of the run, but no progress
+     */
+    @Internal
+    abstract Property<Boolean> getQuiet()
+
+    @Inject
+    abstract WorkerExecutor getWorkerExecutor()
+
+    protected WorkQueue workQueue() {
+        switch (isolation.getOrElse("classloader")) {
+            case "none":
+                return workerExecutor.noIsolation()
+            case "classloader":
+                return workerExecutor.classLoaderIsolation { spec -> spec.classpath.from(generatorClasspath) }
+            case "process":
+                return workerExecutor.processIsolation { spec -> spec.classpath.from(generatorClasspath) }
+            default:
+                throw new InvalidUserDataException("Unknown worker isolation '${isolation.get()}', use none, classloader or process")
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package eu.emundo.gradle.octane.generator
 
-import com.hpe.adm.nga.sdk.exception.OctaneException
-import eu.emundo.generator.generate.GenerateModels
-import org.gradle.api.GradleScriptException
 import org.gradle.api.InvalidUserDataException
 import org.gradle.api.Plugin
 import org.gradle.api.Project
@@ -12,22 +9,101 @@ class GenerateModelsPlugin implements Plugin<Project> {
 
     @Override
     void apply(final Project project) {
-        project.task("generateModels") {
-            group = 'octane'
-            def extension = project.extensions.create("octane", GenerateModelsPluginExtension)
-            doLast {
-                try {
-                    println("Starting to generate entities")
-                    new GenerateModels(extension.generatedSourcesDirectory, extension.ignoreListIds)
-                            .generate(extension.clientId, extension.clientSecret, extension.server, extension.sharedSpace, extension.workSpace,
-                                    extension.doNotValidateCertificate, extension.techPreview)
-                } catch (IOException e) {
-                    throw new InvalidUserDataException("Problem generating entities", e)
-                } catch (OctaneException e) {
-                    throw new GradleScriptException("Problem getting Octane data", e)
+        def extension = project.extensions.create("octane", GenerateModelsPluginExtension)
+        def generatorClasspath = createGeneratorConfiguration(project)
+        project.tasks.withType(AbstractOctaneWorkerTask).configureEach { task ->
+            task.isolation.set(project.provider { extension.workerIsolation })
+            task.generatorClasspath.from(project.provider { extension.workerIsolation == "none" ? [] : generatorClasspath })
+            task.reportDirectory.convention(project.layout.buildDirectory.dir("reports/octane"))
+            task.quiet.set(project.provider { extension.quiet })
+        }
+        def fetchMetadata = project.tasks.register("fetchOctaneMetadata", RecordOctaneSnapshotTask) { task ->
+            task.group = 'octane'
+            task.description = 'Fetches the Octane metadata used by generateModels'
+            configureRecordTask(project, extension, task)
+            task.snapshotFile.set(project.layout.buildDirectory.file("octane/metadata-snapshot.json"))
+        }
+        project.tasks.register("recordSnapshot", RecordOctaneSnapshotTask) { task ->
+            task.group = 'octane'
+            task.description = 'Records the Octane metadata into the configured snapshotFile'
+            configureRecordTask(project, extension, task)
+            // queried when the task runs, before its actions
+            task.snapshotFile.set(project.layout.file(project.provider {
+                if (extension.snapshotFile == null) {
+                    throw new InvalidUserDataException("octane.snapshotFile has to be set to record a snapshot")
                 }
-                println("Finished generating entities")
+                extension.snapshotFile
+            }))
+        }
+        project.tasks.register("generateModels", GenerateOctaneModelsTask) { task ->
+            task.group = 'octane'
+            task.description = 'Generates the typed Octane models'
+            // a configured snapshot replaces fetching the metadata from the server
+            task.dependsOn { extension.snapshotFile == null ? fetchMetadata : [] }
+            task.snapshotFile.set(project.layout.file(project.provider {
+                extension.snapshotFile ?: fetchMetadata.get().snapshotFile.get().asFile
+            }))
+            task.ignoreListIds.set(project.provider { extension.ignoreListIds })
+            task.renderParallelism.set(project.provider { extension.renderParallelism })
+            task.maxRequiredFieldConstructors.set(project.provider { extension.maxRequiredFieldConstructors })
+            task.emitter.set(project.provider { extension.emitter })
+            task.flatModels.set(project.provider { extension.flatModels })
+            task.generatedSourcesDirectory.set(project.layout.dir(project.provider { extension.generatedSourcesDirectory }))
+            task.generatedSourcesArchive.set(project.layout.file(project.provider { extension.generatedSourcesArchive }))
+        }
+    }
+
+    /**
+     * The classpath of isolated workers: the plugin itself and the libraries it
+     * was built with. Can be changed through the octaneGenerator configuration.
+     */
+    private static Object createGeneratorConfiguration(final Project project) {
+        def versions = new Properties()
+        GenerateModelsPlugin.getResourceAsStream("/octane-generator.properties").withCloseable { versions.load(it) }
+        def configuration = project.configurations.create("octaneGenerator") { configuration ->
+            configuration.visible = false
+            configuration.canBeConsumed = false
+            configuration.description = 'Libraries used by the isolated Octane generator workers'
+            configuration.defaultDependencies { dependencies ->
+                dependencies.add(project.dependencies.create("com.microfocus.adm.almoctane.sdk:sdk-src:${versions.sdkVersion}"))
+                dependencies.add(project.dependencies.create("org.apache.velocity:velocity:${versions.velocityVersion}"))
+                dependencies.add(project.dependencies.create("com.google.code.gson:gson:${versions.gsonVersion}"))
             }
         }
+        return project.files(generatorLocation(), configuration)
+    }
+
+    /**
+     * The jar or directory holding the generator classes. Found through the
+     * class file, so that the generator is not loaded into the daemon.
+     */
+    private static File generatorLocation() {
+        def classFile = 'eu/emundo/generator/generate/GenerateModels.class'
+        def url = GenerateModelsPlugin.classLoader.getResource(classFile)
+        if (url.protocol == 'jar') {
+            return new File(((JarURLConnection) url.openConnection()).jarFileURL.toURI())
+        }
+        def location = new File(url.toURI())
+        classFile.count('/').times { location = location.parentFile }
+        return location.parentFile
+    }
+
+    private static void configureRecordTask(final Project project, final GenerateModelsPluginExtension extension, final RecordOctaneSnapshotTask task) {
+        task.server.set(project.provider { extension.server })
+        task.sharedSpace.set(project.provider { extension.sharedSpace })
+        task.workSpace.set(project.provider { extension.workSpace })
+        task.workSpaces.set(project.provider { extension.workSpaces?.collect { it as Long } })
+        task.clientId.set(project.provider { extension.clientId })
+        task.clientSecret.set(project.provider { extension.clientSecret })
+        task.doNotValidateCertificate.set(project.provider { extension.doNotValidateCertificate })
+        task.techPreview.set(project.provider { extension.techPreview })
+        task.ignoreListIds.set(project.provider { extension.ignoreListIds })
+        task.bulkListFetch.set(project.provider { extension.bulkListFetch })
+        task.fetchParallelism.set(project.provider { extension.fetchParallelism })
+        task.metadataCacheTtlMinutes.set(project.provider { extension.metadataCacheTtlMinutes })
+        task.metadataCacheDirectory.set(new File(project.gradle.gradleUserHomeDir, "caches/octane-metadata"))
+        task.refreshMetadata.convention(project.provider {
+            extension.refreshMetadata || project.hasProperty("refreshOctaneMetadata") || project.gradle.startParameter.refreshDependencies
+        })
     }
 }
@@ -1,16 +1,32 @@
 package eu.emundo.gradle.octane.generator
 
-import org.gradle.api.tasks.OutputDirectory
-
+/**
+ * The defaults are plain values instead of the constants of the generator, so
+ * that its classes are only loaded by the workers.
+ */
 class GenerateModelsPluginExtension {
-    @OutputDirectory
     File generatedSourcesDirectory
+    File generatedSourcesArchive
     String clientId
     String clientSecret
     String server
     long sharedSpace
     long workSpace
+    List<Long> workSpaces
     boolean doNotValidateCertificate
     boolean techPreview
     String ignoreListIds
+    boolean bulkListFetch
+    int fetchParallelism = 1
+    int renderParallelism = 1
+    // GenerateModels.DEFAULT_MAX_REQUIRED_FIELD_CONSTRUCTORS
+    int maxRequiredFieldConstructors = 64
+    // CodeEmitter.VELOCITY
+    String emitter = "velocity"
+    boolean flatModels
+    File snapshotFile
+    int metadataCacheTtlMinutes
+    boolean refreshMetadata
+    String workerIsolation = "classloader"
+    boolean quiet
 }
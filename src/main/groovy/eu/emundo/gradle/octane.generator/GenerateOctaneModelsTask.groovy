@@ -0,0 +1,70 @@
+package eu.emundo.gradle.octane.generator
+
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.CacheableTask
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.Internal
+import org.gradle.api.tasks.Optional
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * Generates the models from a metadata snapshot. The snapshot is the only input
+ * depending on the server, so the task is up-to-date or loaded from the build
+ * cache as long as the metadata does not change.
+ */
+@CacheableTask
+abstract class GenerateOctaneModelsTask extends AbstractOctaneWorkerTask {
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    abstract RegularFileProperty getSnapshotFile()
+
+    @Input
+    @Optional
+    abstract Property<String> getIgnoreListIds()
+
+    @Internal
+    abstract Property<Integer> getRenderParallelism()
+
+    @Input
+    abstract Property<Integer> getMaxRequiredFieldConstructors()
+
+    @Input
+    abstract Property<String> getEmitter()
+
+    @Input
+    abstract Property<Boolean> getFlatModels()
+
+    @OutputDirectory
+    abstract DirectoryProperty getGeneratedSourcesDirectory()
+
+    @OutputFile
+    @Optional
+    abstract RegularFileProperty getGeneratedSourcesArchive()
+
+    @TaskAction
+    void generate() {
+        if (!quiet.getOrElse(false)) {
+            logger.info("Starting to generate entities")
+        }
+        workQueue().submit(GenerateModelsWorkAction) { parameters ->
+            parameters.snapshotFile.set(snapshotFile)
+            parameters.ignoreListIds.set(ignoreListIds)
+            parameters.renderParallelism.set(renderParallelism)
+            parameters.maxRequiredFieldConstructors.set(maxRequiredFieldConstructors)
+            parameters.emitter.set(emitter)
+            parameters.flatModels.set(flatModels)
+            parameters.generatedSourcesDirectory.set(generatedSourcesDirectory)
+            parameters.generatedSourcesArchive.set(generatedSourcesArchive)
+            parameters.reportDirectory.set(reportDirectory)
+            parameters.quiet.set(quiet)
+        }
+    }
+}
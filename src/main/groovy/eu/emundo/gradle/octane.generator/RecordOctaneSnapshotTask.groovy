@@ -0,0 +1,103 @@
+package eu.emundo.gradle.octane.generator
+
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.ListProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.Internal
+import org.gradle.api.tasks.Optional
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.TaskAction
+import org.gradle.api.tasks.options.Option
+
+/**
+ * Fetches the metadata from the Octane server, or the metadata cache, and
+ * writes it to a snapshot file. The metadata on the server can change at any
+ * time, so the task is never up-to-date.
+ */
+abstract class RecordOctaneSnapshotTask extends AbstractOctaneWorkerTask {
+
+    @Input
+    abstract Property<String> getServer()
+
+    @Input
+    abstract Property<Long> getSharedSpace()
+
+    @Input
+    abstract Property<Long> getWorkSpace()
+
+    @Input
+    @Optional
+    abstract ListProperty<Long> getWorkSpaces()
+
+    @Internal
+    abstract Property<String> getClientId()
+
+    @Internal
+    abstract Property<String> getClientSecret()
+
+    @Input
+    abstract Property<Boolean> getDoNotValidateCertificate()
+
+    @Input
+    abstract Property<Boolean> getTechPreview()
+
+    @Input
+    @Optional
+    abstract Property<String> getIgnoreListIds()
+
+    @Internal
+    abstract Property<Boolean> getBulkListFetch()
+
+    @Internal
+    abstract Property<Integer> getFetchParallelism()
+
+    @Internal
+    abstract Property<Integer> getMetadataCacheTtlMinutes()
+
+    @Internal
+    abstract DirectoryProperty getMetadataCacheDirectory()
+
+    @Internal
+    abstract Property<Boolean> getRefreshMetadata()
+
+    @OutputFile
+    abstract RegularFileProperty getSnapshotFile()
+
+    RecordOctaneSnapshotTask() {
+        outputs.upToDateWhen { false }
+    }
+
+    @Option(option = "refresh-octane-metadata", description = "Ignores the metadata cache and fetches the metadata from the server.")
+    void setRefreshOctaneMetadata(final boolean refresh) {
+        refreshMetadata.set(refresh)
+    }
+
+    @TaskAction
+    void record() {
+        if (!quiet.getOrElse(false)) {
+            logger.info("Recording metadata snapshot {}", snapshotFile.get().asFile)
+        }
+        workQueue().submit(RecordSnapshotWorkAction) { parameters ->
+            parameters.server.set(server)
+            parameters.sharedSpace.set(sharedSpace)
+            parameters.workSpace.set(workSpace)
+            parameters.workSpaces.set(workSpaces)
+            parameters.clientId.set(clientId)
+            parameters.clientSecret.set(clientSecret)
+            parameters.doNotValidateCertificate.set(doNotValidateCertificate)
+            parameters.techPreview.set(techPreview)
+            parameters.ignoreListIds.set(ignoreListIds)
+            parameters.bulkListFetch.set(bulkListFetch)
+            parameters.fetchParallelism.set(fetchParallelism)
+            parameters.metadataCacheTtlMinutes.set(metadataCacheTtlMinutes)
+            parameters.metadataCacheDirectory.set(metadataCacheDirectory)
+            parameters.refreshMetadata.set(refreshMetadata)
+            parameters.snapshotFile.set(snapshotFile)
+            parameters.reportDirectory.set(reportDirectory)
+            parameters.reportName.set(name)
+            parameters.quiet.set(quiet)
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package eu.emundo.generator.generate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * <p>
+ * Turns the data prepared by {@link GenerateModels} into Java source code.
+ * </p>
+ * <p>
+ * Every kind of generated file gets a context with the same entries as the
+ * matching Velocity template. Implementations must be usable from multiple
+ * threads.
+ * </p>
+ */
+public interface CodeEmitter {
+
+	/**
+	 * Name of the emitter rendering the Velocity templates
+	 */
+	String VELOCITY = "velocity";
+
+	/**
+	 * Name of the emitter writing the code directly from Java
+	 */
+	String JAVA = "java";
+
+	/**
+	 * The kinds of generated files
+	 */
+	enum Kind {
+		ENTITY_MODEL("/EntityModel.vm"), ENTITY("/Entity.vm"), ENTITY_LIST("/TypedEntityList.vm"), PHASES("/Phases.vm"), LIST("/List.vm"),
+		FIELD_DESCRIPTOR("/FieldDescriptor.vm"), FLAT_MODEL("/FlatModel.vm"),
+		ENTITY_TYPE_REGISTRY("/EntityTypeRegistry.vm"), IMMUTABLE_REFERENCE("/ImmutableReference.vm");
+
+		private final String templateName;
+
+		Kind(final String templateName) {
+			this.templateName = templateName;
+		}
+
+		/**
+		 * @return The name of the Velocity template as classpath resource
+		 */
+		public String getTemplateName() {
+			return templateName;
+		}
+	}
+
+	/**
+	 * Writes the source code of one file
+	 *
+	 * @param kind
+	 *            The kind of the file
+	 * @param context
+	 *            The data of the file
+	 * @param writer
+	 *            The target
+	 * @throws IOException
+	 *             A problem writing the code
+	 */
+	void emit(Kind kind, Map<String, Object> context, Writer writer) throws IOException;
+
+	/**
+	 * Creates the emitter with the given name
+	 *
+	 * @param name
+	 *            {@link #VELOCITY} or {@link #JAVA}
+	 * @return The emitter
+	 */
+	static CodeEmitter create(final String name) {
+		if (name == null || VELOCITY.equals(name)) {
+			return new VelocityCodeEmitter();
+		}
+		if (JAVA.equals(name)) {
+			return new JavaCodeEmitter();
+		}
+		throw new IllegalArgumentException("Unknown emitter '" + name + "', expected " + VELOCITY + " or " + JAVA);
+	}
+}
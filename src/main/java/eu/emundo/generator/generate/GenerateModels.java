@@ -1,35 +1,38 @@
 package eu.emundo.generator.generate;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.velocity.Template;
-import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
-
-import com.hpe.adm.nga.sdk.Octane;
-import com.hpe.adm.nga.sdk.Octane.OctaneCustomSettings;
-import com.hpe.adm.nga.sdk.authentication.SimpleClientAuthentication;
-import com.hpe.adm.nga.sdk.entities.OctaneCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.hpe.adm.nga.sdk.metadata.EntityMetadata;
 import com.hpe.adm.nga.sdk.metadata.FieldMetadata;
-import com.hpe.adm.nga.sdk.metadata.Metadata;
 import com.hpe.adm.nga.sdk.metadata.features.Feature;
 import com.hpe.adm.nga.sdk.metadata.features.RestFeature;
 import com.hpe.adm.nga.sdk.metadata.features.SubTypesOfFeature;
@@ -37,8 +40,6 @@ import com.hpe.adm.nga.sdk.model.EntityModel;
 import com.hpe.adm.nga.sdk.model.LongFieldModel;
 import com.hpe.adm.nga.sdk.model.ReferenceFieldModel;
 import com.hpe.adm.nga.sdk.model.StringFieldModel;
-import com.hpe.adm.nga.sdk.query.Query;
-import com.hpe.adm.nga.sdk.query.QueryMethod;
 
 /**
  * <p>
@@ -63,9 +64,35 @@ import com.hpe.adm.nga.sdk.query.QueryMethod;
  */
 public class GenerateModels {
 
-	private final Template template, interfaceTemplate, entityListTemplate, phasesTemplate, listTemplate;
+	/**
+	 * File in the output directory holding the hash of the last successful
+	 * generation, followed by the manifest of the generated files
+	 */
+	static final String GENERATION_HASH_FILE = ".octane-generation.sha256";
+
+	/**
+	 * Default for the number of required field constructors of a model, above
+	 * which a builder is generated instead
+	 */
+	public static final int DEFAULT_MAX_REQUIRED_FIELD_CONSTRUCTORS = 64;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GenerateModels.class);
+
 	private final File modelDirectory, entitiesDirectory, enumsDirectory, listsDirectory;
 	private final List<String> ignoredListIds;
+	private final MetadataFetcher metadataFetcher;
+	private int renderParallelism = 1;
+	private int maxRequiredFieldConstructors = DEFAULT_MAX_REQUIRED_FIELD_CONSTRUCTORS;
+	private String emitter = CodeEmitter.VELOCITY;
+	private boolean flatModels;
+	private CodeEmitter codeEmitter;
+	private final File outputDirectory;
+	private File outputArchive;
+	private GeneratedFiles generatedFiles;
+	private Map<String, Map<String, List<Long>>> workspaceSpecificFields;
+	private final GenerationMetrics metrics = new GenerationMetrics();
+	private File reportDirectory;
+	private boolean quiet;
 
 	/**
 	 * Initialise the class with the output directory. This should normally be
@@ -83,28 +110,162 @@ public class GenerateModels {
 		} else {
 			this.ignoredListIds = null;
 		}
+		this.metadataFetcher = new MetadataFetcher(ignoredListIds).setMetrics(metrics);
+		this.outputDirectory = outputDirectory;
 		final File packageDirectory = new File(outputDirectory, "/com/hpe/adm/nga/sdk");
 		modelDirectory = new File(packageDirectory, "model");
-		modelDirectory.mkdirs();
 		entitiesDirectory = new File(packageDirectory, "entities");
-		entitiesDirectory.mkdirs();
 		enumsDirectory = new File(packageDirectory, "enums");
 		listsDirectory = new File(enumsDirectory, "lists");
-		listsDirectory.mkdirs();
+	}
+
+	/**
+	 * Fetch all list nodes with a few paged requests instead of one request
+	 * per list root
+	 *
+	 * @param bulkListFetch
+	 *            Whether the list nodes should be fetched in bulk
+	 * @return this
+	 */
+	public GenerateModels setBulkListFetch(final boolean bulkListFetch) {
+		metadataFetcher.setBulkListFetch(bulkListFetch);
+		return this;
+	}
+
+	/**
+	 * Number of concurrent requests used to fetch the field metadata of the
+	 * entities
+	 *
+	 * @param fetchParallelism
+	 *            The maximum number of concurrent requests, values below 2
+	 *            fetch sequentially
+	 * @return this
+	 */
+	public GenerateModels setFetchParallelism(final int fetchParallelism) {
+		metadataFetcher.setFetchParallelism(fetchParallelism);
+		return this;
+	}
+
+	/**
+	 * Number of threads used to render the entities. The emitter is shared
+	 * between the threads, every entity gets its own context
+	 *
+	 * @param renderParallelism
+	 *            The number of threads, values below 2 render on the calling
+	 *            thread
+	 * @return this
+	 */
+	public GenerateModels setRenderParallelism(final int renderParallelism) {
+		this.renderParallelism = renderParallelism;
+		return this;
+	}
+
+	/**
+	 * Models get one constructor for every combination of the allowed types of
+	 * their required fields. If an entity has more combinations than the given
+	 * limit, its model gets a builder with one setter per allowed type instead
+	 *
+	 * @param maxRequiredFieldConstructors
+	 *            The maximum number of required field constructors per model
+	 * @return this
+	 */
+	public GenerateModels setMaxRequiredFieldConstructors(final int maxRequiredFieldConstructors) {
+		this.maxRequiredFieldConstructors = maxRequiredFieldConstructors;
+		return this;
+	}
+
+	/**
+	 * Selects how the source code is written: {@link CodeEmitter#VELOCITY}
+	 * renders the Velocity templates, {@link CodeEmitter#JAVA} writes the same
+	 * classes directly from Java, which is faster
+	 *
+	 * @param emitter
+	 *            The name of the emitter
+	 * @return this
+	 */
+	public GenerateModels setEmitter(final String emitter) {
+		this.emitter = emitter == null ? CodeEmitter.VELOCITY : emitter;
+		this.codeEmitter = null;
+		return this;
+	}
+
+	/**
+	 * Generates a flat model next to every entity model, which holds the
+	 * values in slot arrays instead of an EntityModel and is converted from
+	 * and to the entity model at the SDK boundary
+	 *
+	 * @param flatModels
+	 *            Whether the flat models should be generated
+	 * @return this
+	 */
+	public GenerateModels setFlatModels(final boolean flatModels) {
+		this.flatModels = flatModels;
+		return this;
+	}
+
+	/**
+	 * Writes all generated files into one zip or jar instead of the output
+	 * directory, which then only holds the generation hash. The archive is
+	 * reproducible: the entries are sorted and have a constant timestamp
+	 *
+	 * @param outputArchive
+	 *            The archive or null to write the files into the output
+	 *            directory
+	 * @return this
+	 */
+	public GenerateModels setOutputArchive(final File outputArchive) {
+		this.outputArchive = outputArchive;
+		return this;
+	}
+
+	/**
+	 * Writes a report with the timings and counters of every run as
+	 * {@code generateModels.json} and {@code generateModels.csv}. A summary is
+	 * logged in any case
+	 *
+	 * @param reportDirectory
+	 *            The directory of the report or null to only log the summary
+	 * @return this
+	 */
+	public GenerateModels setReportDirectory(final File reportDirectory) {
+		this.reportDirectory = reportDirectory;
+		return this;
+	}
 
-		final VelocityEngine velocityEngine = new VelocityEngine();
-		velocityEngine.setProperty("resource.loader", "class");
-		velocityEngine.setProperty("class.resource.loader.description", "Velocity Classpath Resource Loader");
-		velocityEngine.setProperty(VelocityEngine.RUNTIME_LOG_LOGSYSTEM, new SLF4JLogChute());
-		velocityEngine.setProperty("class.resource.loader.class", "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+	/**
+	 * Only log the summary of the timings and counters, but no progress. The
+	 * details of the lists and entities are logged on debug level in any case
+	 *
+	 * @param quiet
+	 *            Whether the progress should not be logged
+	 * @return this
+	 */
+	public GenerateModels setQuiet(final boolean quiet) {
+		this.quiet = quiet;
+		metadataFetcher.setQuiet(quiet);
+		return this;
+	}
 
-		velocityEngine.init();
+	/**
+	 * @return The timings and counters of the runs of this instance
+	 */
+	public GenerationMetrics getMetrics() {
+		return metrics;
+	}
 
-		template = velocityEngine.getTemplate("/EntityModel.vm");
-		interfaceTemplate = velocityEngine.getTemplate("/Entity.vm");
-		entityListTemplate = velocityEngine.getTemplate("/TypedEntityList.vm");
-		phasesTemplate = velocityEngine.getTemplate("/Phases.vm");
-		listTemplate = velocityEngine.getTemplate("/List.vm");
+	/**
+	 * Use a local cache for the metadata fetched from the server
+	 *
+	 * @param metadataCache
+	 *            The cache or null to always fetch the metadata
+	 * @param refreshMetadata
+	 *            Ignore cached metadata and fetch it again, the cache is
+	 *            updated afterwards
+	 * @return this
+	 */
+	public GenerateModels setMetadataCache(final MetadataCache metadataCache, final boolean refreshMetadata) {
+		metadataFetcher.setMetadataCache(metadataCache, refreshMetadata);
+		return this;
 	}
 
 	/**
@@ -131,45 +292,308 @@ public class GenerateModels {
 	 */
 	public void generate(final String clientId, final String clientSecret, final String server, final long sharedSpace, final long workSpace,
 			final boolean doNotValidateCertificate, final boolean techPreview) throws IOException, GeneralSecurityException {
-		// work around for work_items_root
-		final OctaneCustomSettings octaneCustomSettings = new OctaneCustomSettings();
-		octaneCustomSettings.set(OctaneCustomSettings.Setting.TRUST_ALL_CERTS, doNotValidateCertificate);
-		final Octane octanePrivate = new Octane.Builder(new SimpleClientAuthentication(clientId, clientSecret, GeneratorHelper.TECHNICAL_PREVIEW_APIMODE), null)
-				.sharedSpace(sharedSpace)
-				.workSpace(workSpace)
-				.Server(server)
-				.settings(octaneCustomSettings)
-				.build();
-		final EntityMetadata work_items_root = octanePrivate.metadata().entities("work_item_root").execute().iterator().next();
-		final Collection<FieldMetadata> work_items_rootFields = octanePrivate.metadata().fields("work_item_root").execute();
-
-		octanePrivate.signOut();
-
-		final Octane octane = new Octane.Builder(
-				new SimpleClientAuthentication(clientId, clientSecret, techPreview ? GeneratorHelper.TECHNICAL_PREVIEW_APIMODE : null), null)
-						.sharedSpace(sharedSpace)
-						.workSpace(workSpace)
-						.Server(server)
-						.settings(octaneCustomSettings)
-						.build();
-		final Metadata metadata = octane.metadata();
-		final Collection<EntityMetadata> entityMetadata = metadata.entities().execute();
-		entityMetadata.add(work_items_root);
-
-		final Map<String, String> logicalNameToListsMap = generateLists(octane);
-		final Set<String> availablePhases = generatePhases(octane);
-
-		for (final EntityMetadata entityMetadatum : entityMetadata) {
-			final String name = entityMetadatum.getName();
-			if (entityShouldNotBeGenerated(name))
-				continue;
-			final String interfaceName = GeneratorHelper.camelCaseFieldName(name) + "Entity";
-			final Collection<FieldMetadata> fieldMetadata = generateEntity(work_items_rootFields, metadata, entityMetadata, entityMetadatum, name,
-					interfaceName, logicalNameToListsMap, availablePhases);
-			generateInterface(entityMetadatum, name, interfaceName);
-			generateEntityList(entityMetadatum, name, fieldMetadata);
+		generate(metadataFetcher.fetch(clientId, clientSecret, server, sharedSpace, workSpace, doNotValidateCertificate, techPreview));
+	}
+
+	/**
+	 * Run the generation once for several workspaces of one shared space.
+	 * Their metadata is merged, so entities, lists and phases are only
+	 * generated once. Fields which only exist in some of the workspaces are
+	 * marked in the documentation of their getter
+	 *
+	 * @param clientId
+	 *            The client id
+	 * @param clientSecret
+	 *            The client secret
+	 * @param server
+	 *            The server including the protocol and port
+	 * @param sharedSpace
+	 *            The SS id
+	 * @param workSpaces
+	 *            The WS ids
+	 * @param doNotValidateCertificate
+	 *            Disables validating server SSL certificates
+	 * @param techPreview
+	 *            API Mode
+	 * @throws IOException
+	 *             A problem with the generation of the entities
+	 * @throws GeneralSecurityException
+	 *             A problem with the generation of the entities
+	 */
+	public void generate(final String clientId, final String clientSecret, final String server, final long sharedSpace, final List<Long> workSpaces,
+			final boolean doNotValidateCertificate, final boolean techPreview) throws IOException, GeneralSecurityException {
+		generate(metadataFetcher.fetch(clientId, clientSecret, server, sharedSpace, workSpaces, doNotValidateCertificate, techPreview));
+	}
+
+	/**
+	 * Run the generation based on a snapshot previously written by
+	 * {@link #recordSnapshot(String, String, String, long, long, boolean, boolean, File)}.
+	 * No connection to the server is needed.
+	 *
+	 * @param snapshotFile
+	 *            The snapshot file
+	 * @throws IOException
+	 *             A problem reading the snapshot or with the generation of the
+	 *             entities
+	 */
+	public void generate(final File snapshotFile) throws IOException {
+		metrics.add(GenerationMetrics.SNAPSHOT_BYTES, snapshotFile.length());
+		generate(MetadataSnapshot.read(snapshotFile));
+	}
+
+	/**
+	 * Fetches all metadata needed for the generation and writes it to a
+	 * snapshot file
+	 *
+	 * @param clientId
+	 *            The client id
+	 * @param clientSecret
+	 *            The client secret
+	 * @param server
+	 *            The server including the protocol and port
+	 * @param sharedSpace
+	 *            The SS id
+	 * @param workSpace
+	 *            The WS id
+	 * @param doNotValidateCertificate
+	 *            Disables validating server SSL certificates
+	 * @param techPreview
+	 *            API Mode
+	 * @param snapshotFile
+	 *            The file the snapshot is written to
+	 * @throws IOException
+	 *             A problem writing the snapshot
+	 * @throws GeneralSecurityException
+	 *             A problem connecting to the server
+	 */
+	public void recordSnapshot(final String clientId, final String clientSecret, final String server, final long sharedSpace, final long workSpace,
+			final boolean doNotValidateCertificate, final boolean techPreview, final File snapshotFile) throws IOException, GeneralSecurityException {
+		metadataFetcher.fetch(clientId, clientSecret, server, sharedSpace, workSpace, doNotValidateCertificate, techPreview).write(snapshotFile);
+	}
+
+	/**
+	 * Run the generation based on the given metadata
+	 *
+	 * @param snapshot
+	 *            The metadata
+	 * @throws IOException
+	 *             A problem with the generation of the entities
+	 */
+	public void generate(final MetadataSnapshot snapshot) throws IOException {
+		final File generationHashFile = new File(outputDirectory, GENERATION_HASH_FILE);
+		final String generationHash = generationHash(snapshot);
+		if (isUpToDate(generationHashFile, generationHash)) {
+			if (!quiet && LOGGER.isInfoEnabled()) {
+				LOGGER.info("Metadata and generator unchanged since the last run, skipping generation");
+			}
+			metrics.add(GenerationMetrics.SKIPPED, 1);
+			report();
+			return;
+		}
+		// a failed generation must not be taken as up to date
+		Files.deleteIfExists(generationHashFile.toPath());
+
+		if (outputArchive == null) {
+			modelDirectory.mkdirs();
+			entitiesDirectory.mkdirs();
+			listsDirectory.mkdirs();
+			generatedFiles = new GeneratedFiles();
+		} else {
+			outputDirectory.mkdirs();
+			generatedFiles = new GeneratedFiles(outputDirectory, outputArchive);
+		}
+		GeneratorHelper.clearNameCaches();
+		workspaceSpecificFields = snapshot.getWorkspaceSpecificFields();
+		if (codeEmitter == null) {
+			codeEmitter = CodeEmitter.create(emitter);
 		}
-		octane.signOut();
+		final Collection<EntityMetadata> entityMetadata = snapshot.getEntityMetadata();
+		final ReferenceResolver referenceResolver = new ReferenceResolver(entityMetadata);
+		final Map<String, Collection<FieldMetadata>> fieldMetadataByEntity = snapshot.getFieldMetadata();
+
+		final long listsStart = metrics.start();
+		final Map<String, String> logicalNameToListsMap = generateLists(snapshot.getListRootNodes(), snapshot.getListNodes());
+		metrics.stop(GenerationMetrics.LISTS, listsStart);
+		final long phasesStart = metrics.start();
+		final Set<String> availablePhases = generatePhases(snapshot.getPhases());
+		metrics.stop(GenerationMetrics.PHASES, phasesStart);
+		// shared by the field descriptor tables of all models
+		render(CodeEmitter.Kind.FIELD_DESCRIPTOR, new HashMap<>(), new File(modelDirectory, "FieldDescriptor.java"));
+		// shared by the constants of the list and phase enums
+		render(CodeEmitter.Kind.IMMUTABLE_REFERENCE, new HashMap<>(), new File(modelDirectory, "ImmutableReference.java"));
+
+		// an entity listed twice is generated once, with its first metadata
+		final Map<String, EntityMetadata> entitiesByName = new LinkedHashMap<>();
+		entityMetadata.stream()
+				.filter(entityMetadatum -> !entityShouldNotBeGenerated(entityMetadatum.getName()))
+				.forEach(entityMetadatum -> entitiesByName.putIfAbsent(entityMetadatum.getName(), entityMetadatum));
+		final List<EntityMetadata> entitiesToGenerate = new ArrayList<>(entitiesByName.values());
+		// the polymorphic reference getters of all models wrap through it
+		final Map<String, Object> registryContext = new HashMap<>();
+		registryContext.put("entityNames",
+				entitiesToGenerate.stream().map(EntityMetadata::getName).distinct().sorted().collect(Collectors.toList()));
+		render(CodeEmitter.Kind.ENTITY_TYPE_REGISTRY, registryContext, new File(modelDirectory, "EntityTypeRegistry.java"));
+		final long startTime = System.currentTimeMillis();
+		final long entitiesStart = metrics.start();
+		// failures are collected so that all broken entities are reported at
+		// once
+		final Map<String, Throwable> failures = new TreeMap<>();
+		if (renderParallelism <= 1) {
+			for (final EntityMetadata entityMetadatum : entitiesToGenerate) {
+				try {
+					generateEntityFiles(entityMetadatum, fieldMetadataByEntity.get(entityMetadatum.getName()), referenceResolver, logicalNameToListsMap,
+							availablePhases);
+				} catch (IOException | RuntimeException e) {
+					failures.put(entityMetadatum.getName(), e);
+				}
+			}
+		} else {
+			final ExecutorService executorService = Executors.newFixedThreadPool(renderParallelism);
+			try {
+				final Map<String, Future<Void>> futures = new LinkedHashMap<>();
+				for (final EntityMetadata entityMetadatum : entitiesToGenerate) {
+					futures.put(entityMetadatum.getName(), executorService.submit(() -> {
+						generateEntityFiles(entityMetadatum, fieldMetadataByEntity.get(entityMetadatum.getName()), referenceResolver, logicalNameToListsMap,
+								availablePhases);
+						return null;
+					}));
+				}
+				for (final Map.Entry<String, Future<Void>> future : futures.entrySet()) {
+					try {
+						future.getValue().get();
+					} catch (ExecutionException e) {
+						failures.put(future.getKey(), e.getCause());
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while generating entities", e);
+			} finally {
+				executorService.shutdownNow();
+			}
+		}
+		if (!failures.isEmpty()) {
+			final IOException exception = new IOException("Problem generating " + failures.size() + " entities: " + String.join(", ", failures.keySet()));
+			failures.values().forEach(exception::addSuppressed);
+			throw exception;
+		}
+		metrics.stop(GenerationMetrics.ENTITIES, entitiesStart);
+		if (!quiet && LOGGER.isInfoEnabled()) {
+			LOGGER.info("Generated {} entities with parallelism {} in {} ms", entitiesToGenerate.size(), Math.max(renderParallelism, 1),
+					System.currentTimeMillis() - startTime);
+		}
+		final long fileIoStart = metrics.start();
+		if (outputArchive == null) {
+			generatedFiles.deleteStaleFiles(modelDirectory, entitiesDirectory, enumsDirectory, listsDirectory);
+			if (!quiet && LOGGER.isInfoEnabled()) {
+				LOGGER.info("Files written: {}, unchanged: {}, deleted: {}", generatedFiles.getWritten(), generatedFiles.getUnchanged(),
+						generatedFiles.getDeleted());
+			}
+		} else {
+			final boolean archiveWritten = generatedFiles.writeArchive();
+			// sources left from a run without archive would be compiled twice
+			generatedFiles.deleteStaleFiles(modelDirectory, entitiesDirectory, enumsDirectory, listsDirectory);
+			if (!quiet && LOGGER.isInfoEnabled()) {
+				LOGGER.info("Archive {}: {} with {} files", archiveWritten ? "written" : "unchanged", outputArchive,
+						generatedFiles.getWritten() + generatedFiles.getUnchanged());
+			}
+		}
+		metrics.stop(GenerationMetrics.FILE_IO, fileIoStart);
+		metrics.add(GenerationMetrics.FILES_WRITTEN, generatedFiles.getWritten());
+		metrics.add(GenerationMetrics.FILES_UNCHANGED, generatedFiles.getUnchanged());
+		metrics.add(GenerationMetrics.FILES_DELETED, generatedFiles.getDeleted());
+		final List<String> generationHashLines = new ArrayList<>();
+		generationHashLines.add(generationHash);
+		generationHashLines.addAll(generatedFiles.manifest(outputDirectory));
+		Files.write(generationHashFile.toPath(), generationHashLines, StandardCharsets.UTF_8);
+		report();
+	}
+
+	/**
+	 * The generation can be skipped if the hash of the last run matches and
+	 * all files it generated still exist unchanged
+	 */
+	private boolean isUpToDate(final File generationHashFile, final String generationHash) throws IOException {
+		if (!generationHashFile.isFile()) {
+			return false;
+		}
+		final List<String> generationHashLines = Files.readAllLines(generationHashFile.toPath(), StandardCharsets.UTF_8);
+		return !generationHashLines.isEmpty() && generationHash.equals(generationHashLines.get(0))
+				&& GeneratedFiles.matchesManifest(generationHashLines.subList(1, generationHashLines.size()), outputDirectory, outputArchive);
+	}
+
+	private void report() throws IOException {
+		if (reportDirectory != null) {
+			metrics.writeReport(reportDirectory, "generateModels");
+		} else {
+			metrics.logSummary();
+		}
+	}
+
+	/**
+	 * Emits the file into memory and writes the result if it differs from the
+	 * existing file
+	 */
+	private void render(final CodeEmitter.Kind kind, final Map<String, Object> context, final File file) throws IOException {
+		final StringWriter stringWriter = new StringWriter();
+		codeEmitter.emit(kind, context, stringWriter);
+		final long fileIoStart = metrics.start();
+		generatedFiles.write(file, stringWriter.toString());
+		metrics.stop(GenerationMetrics.FILE_IO, fileIoStart);
+	}
+
+	/**
+	 * Generates the model, interface and entity list of one entity. Only
+	 * creates its own contexts, so it can be called concurrently for different
+	 * entities
+	 */
+	private void generateEntityFiles(final EntityMetadata entityMetadatum, final Collection<FieldMetadata> entityFieldMetadata,
+			final ReferenceResolver referenceResolver, final Map<String, String> logicalNameToListsMap, final Set<String> availablePhases)
+			throws IOException {
+		final long start = metrics.start();
+		final String name = entityMetadatum.getName();
+		final String interfaceName = GeneratorHelper.camelCaseFieldName(name) + "Entity";
+		final Collection<FieldMetadata> fieldMetadata = generateEntity(entityFieldMetadata, referenceResolver, entityMetadatum, name, interfaceName,
+				logicalNameToListsMap, availablePhases);
+		generateInterface(entityMetadatum, name, interfaceName);
+		generateEntityList(entityMetadatum, name, fieldMetadata);
+		metrics.stopEntity(name, start);
+	}
+
+	/**
+	 * The hash over everything the generated files depend on: the metadata,
+	 * the ignored lists, the emitter, the flat models, the archive layout and
+	 * the templates
+	 */
+	private String generationHash(final MetadataSnapshot snapshot) throws IOException {
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		content.write(snapshot.contentHash().getBytes(StandardCharsets.UTF_8));
+		content.write(String.valueOf(ignoredListIds).getBytes(StandardCharsets.UTF_8));
+		content.write(String.valueOf(maxRequiredFieldConstructors).getBytes(StandardCharsets.UTF_8));
+		content.write(emitter.getBytes(StandardCharsets.UTF_8));
+		content.write(String.valueOf(flatModels).getBytes(StandardCharsets.UTF_8));
+		content.write(archiveLayout().getBytes(StandardCharsets.UTF_8));
+		for (final CodeEmitter.Kind kind : CodeEmitter.Kind.values()) {
+			try (final InputStream inputStream = GenerateModels.class.getResourceAsStream(kind.getTemplateName())) {
+				final byte[] buffer = new byte[8192];
+				int read;
+				while ((read = inputStream.read(buffer)) != -1) {
+					content.write(buffer, 0, read);
+				}
+			}
+		}
+		return MetadataSnapshot.sha256(content.toByteArray());
+	}
+
+	/**
+	 * Whether an archive is written and the path of the entries in it, which
+	 * does not depend on the location of the project
+	 */
+	private String archiveLayout() {
+		if (outputArchive == null) {
+			return "directory";
+		}
+		return "archive:" + outputDirectory.toPath().relativize(modelDirectory.toPath()).toString().replace(File.separatorChar, '/');
 	}
 
 	private boolean listShouldNotBeGenerated(final String id) {
@@ -186,7 +610,7 @@ public class GenerateModels {
 	 *            The entity that should be checked
 	 * @return Whether this entity should be ignored and therefore not generated
 	 */
-	private boolean entityShouldNotBeGenerated(String name) {
+	static boolean entityShouldNotBeGenerated(String name) {
 		/*
 		 * @Since 15.0.20 The run_history's id is integer even though it should
 		 * be string. It would be extremely complicated to make a special case
@@ -230,32 +654,12 @@ public class GenerateModels {
 		return name.equals("ci_parameter");
 	}
 
-	private Map<String, String> generateLists(final Octane octane) throws IOException {
-		// since octane v12.60.35.103 does not return root list_nodes within
-		// list_nodes call
-		final Collection<EntityModel> rootNodes = octane.entityList("list_nodes")
-				.get()
-				.addFields("name", "id", "logical_name", "activity_level")
-				.query(Query.statement("list_root", QueryMethod.EqualTo, null).build())
-				.execute();
-
-		final List<EntityModel> listNodes = new ArrayList<>();
-		final List<EntityModel> rootNodesToRemove = new ArrayList<>();
-		for (EntityModel rootNode : rootNodes) {
-			if (listShouldNotBeGenerated(rootNode.getId())) {
-				rootNodesToRemove.add(rootNode);
-				continue;
-			}
-			final OctaneCollection<EntityModel> models = octane.entityList("list_nodes")
-					.get()
-					.addFields("name", "list_root", "id", "logical_name", "activity_level")
-					.query(Query.statement("list_root", QueryMethod.EqualTo, Query.statement("id", QueryMethod.EqualTo, rootNode.getId()))
-							.and(Query.statement("activity_level", QueryMethod.LessThan, 2))
-							.build())
-					.execute();
-			listNodes.addAll(models);
-		}
-		rootNodes.removeAll(rootNodesToRemove);
+	private Map<String, String> generateLists(final Collection<EntityModel> allRootNodes, final Collection<EntityModel> allListNodes) throws IOException {
+		final List<EntityModel> rootNodes = allRootNodes.stream().filter(rootNode -> !listShouldNotBeGenerated(rootNode.getId())).collect(Collectors.toList());
+		final Set<String> rootIds = rootNodes.stream().map(EntityModel::getId).collect(Collectors.toSet());
+		final List<EntityModel> listNodes = allListNodes.stream()
+				.filter(listNode -> rootIds.contains(((ReferenceFieldModel) listNode.getValue("list_root")).getValue().getId()))
+				.collect(Collectors.toList());
 
 		final Map<String, List<String[]>> mappedListNodes = new HashMap<>();
 		final Map<String, String> logicalNameToNameMap = new HashMap<>();
@@ -267,7 +671,9 @@ public class GenerateModels {
 			rootId = list_rootValue.getId();
 
 			if (((LongFieldModel) listNode.getValue("activity_level")).getValue().equals(1L)) {
-				System.out.println("List entry is deprecated: " + ((StringFieldModel) listNode.getValue("name")).getValue());
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("List entry is deprecated: {}", ((StringFieldModel) listNode.getValue("name")).getValue());
+				}
 			}
 
 			mappedListNodes.computeIfAbsent(rootId, k -> new ArrayList<>())
@@ -311,7 +717,9 @@ public class GenerateModels {
 
 		for (final Map.Entry<String, List<String[]>> sortedMappedListEntry : sortedMappedListNodes.entrySet()) {
 			final String listId = sortedMappedListEntry.getValue().get(0)[1];
-			System.out.println("Create list class: " + sortedMappedListEntry.getKey());
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Create list class: {}", sortedMappedListEntry.getKey());
+			}
 			final List<String> deprecatedEnums = sortedMappedListEntry.getValue()
 					.stream()
 					.skip(1) // skip root first
@@ -320,32 +728,20 @@ public class GenerateModels {
 					// entries
 					.map(list -> list[0])
 					.collect(Collectors.toList());
-			final VelocityContext velocityContext = new VelocityContext();
-			velocityContext.put("listItems", sortedMappedListEntry.getValue());
-			velocityContext.put("deprecatedItems", deprecatedEnums);
-			final FileWriter fileWriter = new FileWriter(new File(listsDirectory, sortedMappedListEntry.getKey() + ".java"));
-			listTemplate.merge(velocityContext, fileWriter);
-			fileWriter.close();
+			final Map<String, Object> context = new HashMap<>();
+			context.put("listItems", sortedMappedListEntry.getValue());
+			context.put("deprecatedItems", deprecatedEnums);
+			render(CodeEmitter.Kind.LIST, context, new File(listsDirectory, sortedMappedListEntry.getKey() + ".java"));
 		}
 		return logicalNameToNameMap;
 	}
 
 	private String getEntityModelName(final EntityModel listNode) {
-		return GeneratorHelper.handleSingeUnderscoreEnum(GeneratorHelper.removeAccents(((StringFieldModel) listNode.getValue("name")).getValue())
-				.replaceAll(" ", "_")
-				.replaceAll("^\\d", "_$0")
-				.replaceAll("\\W", "_")
-				.toUpperCase());
+		return GeneratorHelper.enumConstantName(((StringFieldModel) listNode.getValue("name")).getValue());
 	}
 
-	private Set<String> generatePhases(final Octane octane) throws IOException {
+	private Set<String> generatePhases(final Collection<EntityModel> phases) throws IOException {
 		final Map<String, List<String[]>> phaseMap = new TreeMap<>();
-		final Collection<EntityModel> phases = octane.entityList("phases")
-				.get()
-				.addFields("id", "name", "entity")
-				.query(Query.statement("activity_level", QueryMethod.EqualTo, 0).build())
-				.execute();
-
 		phases.stream().sorted(Comparator.comparing(phase -> ((StringFieldModel) phase.getValue("name")).getValue())).forEach(phase -> {
 			final List<String[]> phaseValueList = new ArrayList<>();
 			phaseValueList.add(new String[] { //
@@ -361,19 +757,17 @@ public class GenerateModels {
 					});
 		});
 
-		final VelocityContext velocityContext = new VelocityContext();
-		velocityContext.put("phaseMap", phaseMap);
-		final FileWriter fileWriter = new FileWriter(new File(enumsDirectory, "Phases.java"));
-		phasesTemplate.merge(velocityContext, fileWriter);
-		fileWriter.close();
+		final Map<String, Object> context = new HashMap<>();
+		context.put("phaseMap", phaseMap);
+		render(CodeEmitter.Kind.PHASES, context, new File(enumsDirectory, "Phases.java"));
 
 		return phaseMap.keySet();
 	}
 
-	private Collection<FieldMetadata> generateEntity(final Collection<FieldMetadata> work_items_rootFields, final Metadata metadata,
-			final Collection<EntityMetadata> entityMetadata, final EntityMetadata entityMetadatum, final String name, final String interfaceName,
-			final Map<String, String> logicalNameToListsMap, final Set<String> availablePhases) throws IOException {
-		final List<FieldMetadata> fieldMetadata = new ArrayList<>(name.equals("work_item_root") ? work_items_rootFields : metadata.fields(name).execute());
+	private Collection<FieldMetadata> generateEntity(final Collection<FieldMetadata> entityFieldMetadata, final ReferenceResolver referenceResolver,
+			final EntityMetadata entityMetadatum, final String name, final String interfaceName, final Map<String, String> logicalNameToListsMap,
+			final Set<String> availablePhases) throws IOException {
+		final List<FieldMetadata> fieldMetadata = new ArrayList<>(entityFieldMetadata);
 		fieldMetadata.sort(Comparator.comparing(FieldMetadata::getName));
 		final TreeMap<String, List<String>> collectedReferences = fieldMetadata.stream()
 				.filter(FieldMetadata::isRequired)
@@ -388,8 +782,8 @@ public class GenerateModels {
 							final String listName = logicalNameToListsMap.get(fieldMetadata1.getFieldTypedata().getTargets()[0].logicalName());
 							references.add("com.hpe.adm.nga.sdk.enums.lists." + listName);
 						} else {
-							final GeneratorHelper.ReferenceMetadata referenceMetadata = GeneratorHelper.getAllowedSuperTypesForReference(fieldMetadata1,
-									entityMetadata);
+							final GeneratorHelper.ReferenceMetadata referenceMetadata = referenceResolver.getReferenceMetadata(entityMetadatum.getName(),
+									fieldMetadata1);
 							if (fieldMetadata1.getFieldTypedata().isMultiple()) {
 								references.add(referenceMetadata.getReferenceClassForSignature());
 							} else {
@@ -413,10 +807,19 @@ public class GenerateModels {
 					throw new IllegalStateException("problem merging map");
 				}, TreeMap::new));
 
-		final Set<List<String[]>> requiredFields = new HashSet<>();
-		if (!collectedReferences.isEmpty()) {
+		// the combinations are counted first, so that entities with too many
+		// of them are never expanded
+		final long requiredFieldCombinations = countCombinations(collectedReferences);
+		final boolean requiredFieldsBuilder = requiredFieldCombinations > maxRequiredFieldConstructors;
+		final List<List<String[]>> requiredFields = new ArrayList<>();
+		if (!collectedReferences.isEmpty() && !requiredFieldsBuilder) {
 			expandCollectedReferences(collectedReferences, new int[collectedReferences.size()], 0, requiredFields);
 		}
+		if (requiredFieldsBuilder) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Generate builder for {} instead of {} required field constructors", name, requiredFieldCombinations);
+			}
+		}
 		// Die Id muss immer vom Typ String sein, da es sonst Compile fehler
 		// gibt. siehe com.hpe.adm.nga.sdk.model.Entity
 		// fieldMetadata.forEach(field -> {
@@ -425,27 +828,94 @@ public class GenerateModels {
 		// }
 		// });
 
-		final VelocityContext velocityContext = new VelocityContext();
-		velocityContext.put("interfaceName", interfaceName);
-		velocityContext.put("entityMetadata", entityMetadatum);
-		velocityContext.put("fieldMetadata", fieldMetadata);
-		velocityContext.put("logicalNameToListsMap", logicalNameToListsMap);
-		velocityContext.put("entityMetadataCollection", entityMetadata);
-		velocityContext.put("GeneratorHelper", GeneratorHelper.class);
-		velocityContext.put("SortHelper", SortHelper.class);
-		velocityContext.put("entityMetadataWrapper", GeneratorHelper.entityMetadataWrapper(entityMetadatum));
-		velocityContext.put("availablePhases", availablePhases);
-		velocityContext.put("requiredFields", requiredFields);
-
-		final FileWriter fileWriter = new FileWriter(new File(modelDirectory, GeneratorHelper.camelCaseFieldName(name) + "EntityModel.java"));
-		template.merge(velocityContext, fileWriter);
-
-		fileWriter.close();
+		final Map<String, Object> context = new HashMap<>();
+		context.put("interfaceName", interfaceName);
+		context.put("entityMetadata", entityMetadatum);
+		context.put("fieldMetadata", fieldMetadata);
+		context.put("logicalNameToListsMap", logicalNameToListsMap);
+		context.put("referenceResolver", referenceResolver);
+		context.put("entityMetadataWrapper", GeneratorHelper.entityMetadataWrapper(entityMetadatum));
+		context.put("availablePhases", availablePhases);
+		context.put("requiredFields", requiredFields);
+		context.put("requiredFieldTypes", collectedReferences);
+		context.put("requiredFieldsBuilder", requiredFieldsBuilder);
+		context.put("workspaceSpecificFields", workspaceSpecificFieldsOfEntity(name));
+		context.put("referenceViews", fieldMetadata.stream().anyMatch(field -> hasReferenceView(referenceResolver, name, field)));
+
+		render(CodeEmitter.Kind.ENTITY_MODEL, context, new File(modelDirectory, GeneratorHelper.camelCaseFieldName(name) + "EntityModel.java"));
+		if (flatModels) {
+			generateFlatModel(entityMetadatum, name, fieldMetadata);
+		}
 		return fieldMetadata;
 	}
 
-	private void expandCollectedReferences(final TreeMap<String, List<String>> collectedReferences, final int[] positions, final int pointer,
-			final Set<List<String[]>> output) {
+	/**
+	 * Multi-reference getters returning typed models or list enums cache their
+	 * result, the models of those entities get the cache
+	 */
+	private static boolean hasReferenceView(final ReferenceResolver referenceResolver, final String name, final FieldMetadata field) {
+		if (field.getFieldType() != FieldMetadata.FieldType.Reference || !field.getFieldTypedata().isMultiple()) {
+			return false;
+		}
+		if (!"list_node".equals(name) && "list_node".equals(field.getFieldTypedata().getTargets()[0].getType())) {
+			return true;
+		}
+		return referenceResolver.getReferenceMetadata(name, field).hasTypedReturn();
+	}
+
+	/**
+	 * The flat model stores the values of Integer, Float and Boolean fields in
+	 * primitive arrays and all others in one object array, the slots follow
+	 * the order of the sorted field metadata
+	 */
+	private void generateFlatModel(final EntityMetadata entityMetadatum, final String name, final List<FieldMetadata> fieldMetadata) throws IOException {
+		final List<GeneratorHelper.FlatSlot> flatSlots = GeneratorHelper.flatSlots(fieldMetadata);
+		final Map<String, Object> context = new HashMap<>();
+		context.put("entityMetadata", entityMetadatum);
+		context.put("flatSlots", flatSlots);
+		context.put("presentWords", (fieldMetadata.size() + 63) / 64);
+		context.put("objectSlots", GeneratorHelper.countFlatSlots(flatSlots, GeneratorHelper.FlatSlot.OBJECT));
+		context.put("longSlots", GeneratorHelper.countFlatSlots(flatSlots, GeneratorHelper.FlatSlot.LONG));
+		context.put("floatSlots", GeneratorHelper.countFlatSlots(flatSlots, GeneratorHelper.FlatSlot.FLOAT));
+		context.put("booleanSlots", GeneratorHelper.countFlatSlots(flatSlots, GeneratorHelper.FlatSlot.BOOLEAN));
+		render(CodeEmitter.Kind.FLAT_MODEL, context, new File(modelDirectory, GeneratorHelper.camelCaseFieldName(name) + "FlatModel.java"));
+	}
+
+	/**
+	 * The workspaces of the fields of the given entity, which do not exist in
+	 * every workspace, as comma separated list mapped by field name
+	 */
+	private Map<String, String> workspaceSpecificFieldsOfEntity(final String name) {
+		final Map<String, String> workspaceSpecificFieldsOfEntity = new HashMap<>();
+		workspaceSpecificFields.getOrDefault(name, Collections.emptyMap())
+				.forEach((fieldName, workSpaces) -> workspaceSpecificFieldsOfEntity.put(fieldName,
+						workSpaces.stream().map(String::valueOf).collect(Collectors.joining(", "))));
+		return workspaceSpecificFieldsOfEntity;
+	}
+
+	/**
+	 * The number of combinations of the allowed types of the required fields,
+	 * saturated at {@link Long#MAX_VALUE}
+	 */
+	static long countCombinations(final Map<String, List<String>> collectedReferences) {
+		if (collectedReferences.isEmpty()) {
+			return 0;
+		}
+		long combinations = 1;
+		for (final List<String> references : collectedReferences.values()) {
+			if (references.isEmpty()) {
+				return 0;
+			}
+			if (combinations > Long.MAX_VALUE / references.size()) {
+				return Long.MAX_VALUE;
+			}
+			combinations *= references.size();
+		}
+		return combinations;
+	}
+
+	static void expandCollectedReferences(final TreeMap<String, List<String>> collectedReferences, final int[] positions, final int pointer,
+			final List<List<String[]>> output) {
 		final Object[] keyArray = collectedReferences.keySet().toArray();
 		final Object o = keyArray[pointer];
 		for (int i = 0; i < collectedReferences.get(o).size(); ++i) {
@@ -465,18 +935,15 @@ public class GenerateModels {
 
 	private void generateInterface(final EntityMetadata entityMetadatum, final String name, final String interfaceName) throws IOException {
 		// interface
-		final VelocityContext interfaceVelocityContext = new VelocityContext();
+		final Map<String, Object> interfaceContext = new HashMap<>();
 		final Optional<Feature> subTypeOfFeature = entityMetadatum.features().stream().filter(feature -> feature instanceof SubTypesOfFeature).findAny();
 
-		interfaceVelocityContext.put("interfaceName", interfaceName);
-		interfaceVelocityContext.put("name", name);
-		interfaceVelocityContext.put("superInterfaceName",
+		interfaceContext.put("interfaceName", interfaceName);
+		interfaceContext.put("name", name);
+		interfaceContext.put("superInterfaceName",
 				(subTypeOfFeature.map(feature -> GeneratorHelper.camelCaseFieldName(((SubTypesOfFeature) feature).getType())).orElse("")) + "Entity");
 
-		final FileWriter interfaceFileWriter = new FileWriter(new File(modelDirectory, GeneratorHelper.camelCaseFieldName(name) + "Entity.java"));
-		interfaceTemplate.merge(interfaceVelocityContext, interfaceFileWriter);
-
-		interfaceFileWriter.close();
+		render(CodeEmitter.Kind.ENTITY, interfaceContext, new File(modelDirectory, GeneratorHelper.camelCaseFieldName(name) + "Entity.java"));
 	}
 
 	private void generateEntityList(final EntityMetadata entityMetadatum, final String name, final Collection<FieldMetadata> fieldMetadata) throws IOException {
@@ -486,37 +953,33 @@ public class GenerateModels {
 		if (hasRestFeature.isPresent()) {
 			final RestFeature restFeature = (RestFeature) hasRestFeature.get();
 
-			final VelocityContext entityListVelocityContext = new VelocityContext();
-			entityListVelocityContext.put("helper", GeneratorHelper.class);
-			entityListVelocityContext.put("type", GeneratorHelper.camelCaseFieldName(name));
-			entityListVelocityContext.put("url", restFeature.getUrl());
-			entityListVelocityContext.put("availableFields",
+			final Map<String, Object> entityListContext = new HashMap<>();
+			entityListContext.put("type", GeneratorHelper.camelCaseFieldName(name));
+			entityListContext.put("url", restFeature.getUrl());
+			entityListContext.put("availableFields",
 					fieldMetadata.stream().sorted(Comparator.comparing(FieldMetadata::getName)).collect(Collectors.toList()));
-			entityListVelocityContext.put("sortableFields",
+			entityListContext.put("sortableFields",
 					fieldMetadata.stream().filter(FieldMetadata::isSortable).sorted(Comparator.comparing(FieldMetadata::getName)).collect(Collectors.toList()));
 
 			final String[] restFeatureMethods = restFeature.getMethods();
 			for (final String restFeatureMethod : restFeatureMethods) {
 				switch (restFeatureMethod) {
 				case "GET":
-					entityListVelocityContext.put("hasGet", true);
+					entityListContext.put("hasGet", true);
 					break;
 				case "POST":
-					entityListVelocityContext.put("hasCreate", true);
+					entityListContext.put("hasCreate", true);
 					break;
 				case "PUT":
-					entityListVelocityContext.put("hasUpdate", true);
+					entityListContext.put("hasUpdate", true);
 					break;
 				case "DELETE":
-					entityListVelocityContext.put("hasDelete", true);
+					entityListContext.put("hasDelete", true);
 					break;
 				}
 			}
 
-			final FileWriter entityListFileWriter = new FileWriter(new File(entitiesDirectory, GeneratorHelper.camelCaseFieldName(name) + "EntityList.java"));
-			entityListTemplate.merge(entityListVelocityContext, entityListFileWriter);
-
-			entityListFileWriter.close();
+			render(CodeEmitter.Kind.ENTITY_LIST, entityListContext, new File(entitiesDirectory, GeneratorHelper.camelCaseFieldName(name) + "EntityList.java"));
 		}
 	}
 }
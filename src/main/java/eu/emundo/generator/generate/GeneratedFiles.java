@@ -0,0 +1,244 @@
+package eu.emundo.generator.generate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * Keeps track of the files written during one generation run.
+ * </p>
+ * <p>
+ * A file is only written if its content differs from the existing file, so
+ * that unchanged files keep their timestamps and do not cause downstream
+ * compile tasks to run again. Files of entities or lists which disappeared can
+ * be removed with {@link #deleteStaleFiles(File...)}.
+ * </p>
+ * <p>
+ * Alternatively all files can be collected into one archive, which is written
+ * by {@link #writeArchive()} in a single pass. The entries are sorted by name
+ * and have a constant timestamp, so the same content always results in the
+ * same archive. Can be used from multiple threads.
+ * </p>
+ * <p>
+ * The {@link #manifest(File)} lists the hashes of the generated files, so that
+ * a later run can check whether they were deleted or edited by hand.
+ * </p>
+ */
+public final class GeneratedFiles {
+
+	/**
+	 * Timestamp of all archive entries, the same constant Gradle uses for
+	 * reproducible archives. Created in the default time zone, as zip entries
+	 * store the local time
+	 */
+	private static final long ARCHIVE_ENTRY_TIME = new GregorianCalendar(1980, 1, 1, 0, 0, 0).getTimeInMillis();
+
+	/**
+	 * Name of the archive in the manifest
+	 */
+	static final String ARCHIVE_MANIFEST_NAME = "*archive";
+
+	private final Map<File, String> fileHashes = new ConcurrentHashMap<>();
+	private String archiveHash;
+	private final File baseDirectory;
+	private final File archive;
+	private final Map<String, byte[]> archiveEntries = new ConcurrentSkipListMap<>();
+	private final AtomicInteger written = new AtomicInteger();
+	private final AtomicInteger unchanged = new AtomicInteger();
+	private final AtomicInteger deleted = new AtomicInteger();
+
+	/**
+	 * Writes the files directly into their directories
+	 */
+	public GeneratedFiles() {
+		this(null, null);
+	}
+
+	/**
+	 * Collects the files for one archive
+	 *
+	 * @param baseDirectory
+	 *            The directory the files are placed in, their path relative to
+	 *            it is the name of the entry
+	 * @param archive
+	 *            The zip or jar file, or null to write the files directly
+	 */
+	public GeneratedFiles(final File baseDirectory, final File archive) {
+		this.baseDirectory = baseDirectory;
+		this.archive = archive;
+	}
+
+	/**
+	 * Writes the content to the file unless the file already has exactly that
+	 * content
+	 *
+	 * @param file
+	 *            The target file
+	 * @param content
+	 *            The generated content
+	 * @throws IOException
+	 *             A problem reading or writing the file
+	 */
+	public void write(final File file, final String content) throws IOException {
+		final byte[] bytes = content.getBytes(Charset.defaultCharset());
+		if (archive != null) {
+			archiveEntries.put(baseDirectory.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/'), bytes);
+			return;
+		}
+		fileHashes.put(file.getAbsoluteFile(), MetadataSnapshot.sha256(bytes));
+		if (file.isFile() && file.length() == bytes.length && Arrays.equals(bytes, Files.readAllBytes(file.toPath()))) {
+			unchanged.incrementAndGet();
+			return;
+		}
+		Files.write(file.toPath(), bytes);
+		written.incrementAndGet();
+	}
+
+	/**
+	 * Deletes all java files in the given directories which have not been
+	 * generated in this run. Subdirectories are not touched
+	 *
+	 * @param directories
+	 *            The directories containing generated files
+	 * @throws IOException
+	 *             A problem deleting a file
+	 */
+	public void deleteStaleFiles(final File... directories) throws IOException {
+		for (final File directory : directories) {
+			final File[] existingFiles = directory.listFiles((dir, name) -> name.endsWith(".java"));
+			if (existingFiles == null) {
+				continue;
+			}
+			for (final File existingFile : existingFiles) {
+				if (!fileHashes.containsKey(existingFile.getAbsoluteFile())) {
+					Files.delete(existingFile.toPath());
+					deleted.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes all collected files into the archive. The archive is only
+	 * replaced if its content changes
+	 *
+	 * @return true if the archive was written, false if it was unchanged
+	 * @throws IOException
+	 *             A problem reading or writing the archive
+	 */
+	public boolean writeArchive() throws IOException {
+		final ByteArrayOutputStream content = new ByteArrayOutputStream(archiveEntries.size() * 4096);
+		try (final ZipOutputStream zipOutputStream = new ZipOutputStream(content)) {
+			for (final Map.Entry<String, byte[]> archiveEntry : archiveEntries.entrySet()) {
+				final ZipEntry zipEntry = new ZipEntry(archiveEntry.getKey());
+				zipEntry.setTime(ARCHIVE_ENTRY_TIME);
+				zipOutputStream.putNextEntry(zipEntry);
+				zipOutputStream.write(archiveEntry.getValue());
+				zipOutputStream.closeEntry();
+			}
+		}
+		final byte[] bytes = content.toByteArray();
+		archiveHash = MetadataSnapshot.sha256(bytes);
+		if (archive.isFile() && archive.length() == bytes.length && Arrays.equals(bytes, Files.readAllBytes(archive.toPath()))) {
+			unchanged.addAndGet(archiveEntries.size());
+			return false;
+		}
+		final File archiveDirectory = archive.getAbsoluteFile().getParentFile();
+		if (archiveDirectory != null) {
+			Files.createDirectories(archiveDirectory.toPath());
+		}
+		Files.write(archive.toPath(), bytes);
+		written.addAndGet(archiveEntries.size());
+		return true;
+	}
+
+	/**
+	 * Lists the SHA-256 hashes of the generated files, one line per file
+	 * followed by its path relative to the base directory, sorted by path. An
+	 * archive is listed as one line with the name {@value #ARCHIVE_MANIFEST_NAME}
+	 *
+	 * @param baseDirectory
+	 *            The directory the paths are relative to
+	 * @return The lines of the manifest
+	 */
+	public List<String> manifest(final File baseDirectory) {
+		final List<String> manifest = new ArrayList<>();
+		if (archive != null) {
+			manifest.add(archiveHash + ' ' + ARCHIVE_MANIFEST_NAME);
+			return manifest;
+		}
+		final Map<String, String> sortedHashes = new TreeMap<>();
+		fileHashes.forEach((file, hash) -> sortedHashes.put(relativePath(baseDirectory, file), hash));
+		sortedHashes.forEach((path, hash) -> manifest.add(hash + ' ' + path));
+		return manifest;
+	}
+
+	/**
+	 * Checks that the files listed in a manifest still exist with the listed
+	 * content
+	 *
+	 * @param manifest
+	 *            The lines written by {@link #manifest(File)}
+	 * @param baseDirectory
+	 *            The directory the paths are relative to
+	 * @param archive
+	 *            The archive or null if the files are written directly
+	 * @return false if the manifest is empty or a file is missing or differs
+	 * @throws IOException
+	 *             A problem reading a file
+	 */
+	public static boolean matchesManifest(final List<String> manifest, final File baseDirectory, final File archive) throws IOException {
+		if (manifest.isEmpty()) {
+			return false;
+		}
+		for (final String line : manifest) {
+			final int separator = line.indexOf(' ');
+			if (separator < 0) {
+				return false;
+			}
+			final String path = line.substring(separator + 1);
+			final File file;
+			if (ARCHIVE_MANIFEST_NAME.equals(path)) {
+				file = archive;
+			} else if (archive == null) {
+				file = new File(baseDirectory, path);
+			} else {
+				return false;
+			}
+			if (file == null || !file.isFile() || !line.substring(0, separator).equals(MetadataSnapshot.sha256(Files.readAllBytes(file.toPath())))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String relativePath(final File baseDirectory, final File file) {
+		return baseDirectory.getAbsoluteFile().toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+	}
+
+	public int getWritten() {
+		return written.get();
+	}
+
+	public int getUnchanged() {
+		return unchanged.get();
+	}
+
+	public int getDeleted() {
+		return deleted.get();
+	}
+}
@@ -0,0 +1,222 @@
+package eu.emundo.generator.generate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * <p>
+ * Collects timings and counters of the metadata fetch and the generation.
+ * </p>
+ * <p>
+ * The durations of the phases are summed up, phases running on several
+ * threads at once can therefore take longer than the whole run. The report is
+ * written as JSON and CSV, a summary is logged. Can be used from multiple
+ * threads.
+ * </p>
+ */
+public final class GenerationMetrics {
+
+	public static final String AUTHENTICATION = "authentication";
+	public static final String METADATA_FETCH = "metadataFetch";
+	public static final String LISTS = "lists";
+	public static final String PHASES = "phases";
+	public static final String ENTITIES = "entities";
+	public static final String FILE_IO = "fileIo";
+
+	public static final String REST_CALLS = "restCalls";
+	public static final String SNAPSHOT_BYTES = "snapshotBytes";
+	public static final String FILES_WRITTEN = "filesWritten";
+	public static final String FILES_UNCHANGED = "filesUnchanged";
+	public static final String FILES_DELETED = "filesDeleted";
+	public static final String SKIPPED = "skipped";
+
+	/**
+	 * Number of entities listed as the slowest in the report
+	 */
+	private static final int SLOWEST_ENTITIES = 10;
+
+	private static final List<String> PHASE_ORDER = Arrays.asList(AUTHENTICATION, METADATA_FETCH, LISTS, PHASES, ENTITIES, FILE_IO);
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GenerationMetrics.class);
+
+	private final Map<String, AtomicLong> phaseNanos = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+	private final Map<String, Long> entityNanos = new ConcurrentHashMap<>();
+
+	/**
+	 * @return The start time for {@link #stop(String, long)}
+	 */
+	public long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Adds the time since the given start to the phase
+	 *
+	 * @param phase
+	 *            The name of the phase
+	 * @param start
+	 *            The value returned by {@link #start()}
+	 */
+	public void stop(final String phase, final long start) {
+		addNanos(phase, System.nanoTime() - start);
+	}
+
+	/**
+	 * Adds the given duration to the phase
+	 *
+	 * @param phase
+	 *            The name of the phase
+	 * @param nanos
+	 *            The duration in nanoseconds
+	 */
+	public void addNanos(final String phase, final long nanos) {
+		phaseNanos.computeIfAbsent(phase, k -> new AtomicLong()).addAndGet(nanos);
+	}
+
+	/**
+	 * Records the time needed to generate the files of one entity
+	 *
+	 * @param entityName
+	 *            The name of the entity
+	 * @param start
+	 *            The value returned by {@link #start()}
+	 */
+	public void stopEntity(final String entityName, final long start) {
+		entityNanos.merge(entityName, System.nanoTime() - start, Long::sum);
+	}
+
+	/**
+	 * Adds the value to the counter
+	 *
+	 * @param counter
+	 *            The name of the counter
+	 * @param value
+	 *            The value to add
+	 */
+	public void add(final String counter, final long value) {
+		counters.computeIfAbsent(counter, k -> new AtomicLong()).addAndGet(value);
+	}
+
+	/**
+	 * @param phase
+	 *            The name of the phase
+	 * @return The summed up duration of the phase in milliseconds
+	 */
+	public long getMillis(final String phase) {
+		final AtomicLong nanos = phaseNanos.get(phase);
+		return nanos == null ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos.get());
+	}
+
+	/**
+	 * @param counter
+	 *            The name of the counter
+	 * @return The value of the counter
+	 */
+	public long getCount(final String counter) {
+		final AtomicLong value = counters.get(counter);
+		return value == null ? 0 : value.get();
+	}
+
+	/**
+	 * Writes the report as {@code <name>.json} and {@code <name>.csv} and logs
+	 * the summary
+	 *
+	 * @param reportDirectory
+	 *            The directory of the report, created if needed
+	 * @param name
+	 *            The base name of the report files
+	 * @throws IOException
+	 *             A problem writing the report
+	 */
+	public void writeReport(final File reportDirectory, final String name) throws IOException {
+		Files.createDirectories(reportDirectory.toPath());
+		final Map<String, Object> report = new LinkedHashMap<>();
+		report.put("phasesMillis", phasesMillis());
+		report.put("counters", sorted(counters));
+		report.put("slowestEntitiesMillis", slowestEntitiesMillis());
+		try (final Writer writer = Files.newBufferedWriter(new File(reportDirectory, name + ".json").toPath(), StandardCharsets.UTF_8)) {
+			new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+		}
+
+		final StringBuilder csv = new StringBuilder("type,name,value\n");
+		phasesMillis().forEach((phase, millis) -> csv.append("phaseMillis,").append(phase).append(',').append(millis).append('\n'));
+		sorted(counters).forEach((counter, value) -> csv.append("counter,").append(counter).append(',').append(value).append('\n'));
+		slowestEntitiesMillis().forEach((entity, millis) -> csv.append("entityMillis,").append(entity).append(',').append(millis).append('\n'));
+		Files.write(new File(reportDirectory, name + ".csv").toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("{}, report written to {}", summary(), reportDirectory);
+		}
+	}
+
+	/**
+	 * Logs the summary without writing a report
+	 */
+	public void logSummary() {
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("{}", summary());
+		}
+	}
+
+	/**
+	 * @return All phases and counters in one line
+	 */
+	public String summary() {
+		final StringBuilder summary = new StringBuilder("Octane generation metrics:");
+		phasesMillis().forEach((phase, millis) -> summary.append(' ').append(phase).append('=').append(millis).append("ms"));
+		sorted(counters).forEach((counter, value) -> summary.append(' ').append(counter).append('=').append(value));
+		final Map<String, Long> slowestEntities = slowestEntitiesMillis();
+		if (!slowestEntities.isEmpty()) {
+			final Map.Entry<String, Long> slowestEntity = slowestEntities.entrySet().iterator().next();
+			summary.append(" slowestEntity=").append(slowestEntity.getKey()).append('(').append(slowestEntity.getValue()).append("ms)");
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * The phases in the order they are run, unknown phases at the end
+	 */
+	private Map<String, Long> phasesMillis() {
+		final Map<String, Long> phasesMillis = new LinkedHashMap<>();
+		phaseNanos.keySet()
+				.stream()
+				.sorted(Comparator.comparing((String phase) -> PHASE_ORDER.contains(phase) ? PHASE_ORDER.indexOf(phase) : PHASE_ORDER.size())
+						.thenComparing(Comparator.naturalOrder()))
+				.forEach(phase -> phasesMillis.put(phase, getMillis(phase)));
+		return phasesMillis;
+	}
+
+	private Map<String, Long> slowestEntitiesMillis() {
+		final Map<String, Long> slowestEntities = new LinkedHashMap<>();
+		entityNanos.entrySet()
+				.stream()
+				.sorted(Map.Entry.<String, Long> comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+				.limit(SLOWEST_ENTITIES)
+				.forEach(entry -> slowestEntities.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue())));
+		return slowestEntities;
+	}
+
+	private static Map<String, Long> sorted(final Map<String, AtomicLong> values) {
+		return values.entrySet()
+				.stream()
+				.sorted(Map.Entry.comparingByKey())
+				.collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get(), (a, b) -> a, LinkedHashMap::new));
+	}
+}
@@ -1,11 +1,19 @@
 package eu.emundo.generator.generate;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.hpe.adm.nga.sdk.APIMode;
 import com.hpe.adm.nga.sdk.metadata.EntityMetadata;
@@ -27,11 +35,30 @@ import com.hpe.adm.nga.sdk.model.StringFieldModel;
 @SuppressWarnings("ALL")
 public final class GeneratorHelper {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(GeneratorHelper.class);
+
 	private static final String keywords[] = { "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
 			"default", "do", "double", "else", "extends", "false", "final", "finally", "float", "for", "goto", "if", "implements", "import", "instanceof",
 			"int", "interface", "long", "native", "new", "null", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
 			"switch", "synchronized", "this", "throw", "throws", "transient", "true", "try", "void", "volatile", "while" };
 
+	/**
+	 * The names are computed many times per field from the templates, so they
+	 * are cached for the duration of a generation run
+	 */
+	private static final Map<String, String> CAPITALISED_CAMEL_CASE_NAMES = new ConcurrentHashMap<>();
+	private static final Map<String, String> CAMEL_CASE_NAMES = new ConcurrentHashMap<>();
+	private static final Map<String, String> ENUM_CONSTANT_NAMES = new ConcurrentHashMap<>();
+
+	/**
+	 * Clears the cached names. Called at the start of every generation run
+	 */
+	static void clearNameCaches() {
+		CAPITALISED_CAMEL_CASE_NAMES.clear();
+		CAMEL_CASE_NAMES.clear();
+		ENUM_CONSTANT_NAMES.clear();
+	}
+
 	public static String camelCaseFieldName(final String fieldName) {
 		return camelCaseFieldName(fieldName, true);
 	}
@@ -47,26 +74,84 @@ public final class GeneratorHelper {
 	 * @return the name in camelCase
 	 */
 	public static String camelCaseFieldName(final String fieldName, boolean theFirstLetterIsCapital) {
-		final StringBuffer stringBuffer = new StringBuffer();
-		final String[] splitFields = fieldName.split("_");
+		return (theFirstLetterIsCapital ? CAPITALISED_CAMEL_CASE_NAMES : CAMEL_CASE_NAMES).computeIfAbsent(fieldName,
+				name -> getSanitisedFieldName(toCamelCase(name, theFirstLetterIsCapital)));
+	}
+
+	/**
+	 * Joins the words separated by '_'. Every word but the first one starts
+	 * with a capital letter, empty words are skipped but still counted
+	 */
+	static String toCamelCase(final String fieldName, final boolean theFirstLetterIsCapital) {
+		final StringBuilder stringBuilder = new StringBuilder(fieldName.length());
 		int wordCounter = 0;
-		for (final String splitField : splitFields) {
+		int wordStart = 0;
+		while (wordStart <= fieldName.length()) {
+			int wordEnd = fieldName.indexOf('_', wordStart);
+			if (wordEnd < 0) {
+				wordEnd = fieldName.length();
+			}
 			wordCounter++;
-			try {
-				if (wordCounter > 1 || theFirstLetterIsCapital) {
-					stringBuffer.append(splitField.substring(0, 1).toUpperCase());
-				} else {
-					stringBuffer.append(splitField.substring(0, 1).toLowerCase());
-				}
-				stringBuffer.append(splitField.substring(1));
-			} catch (StringIndexOutOfBoundsException e) {
-				e.getCause();
-				// we do nothing here and move to the next wordcounter
+			if (wordEnd > wordStart) {
+				appendFirstLetter(stringBuilder, fieldName.charAt(wordStart), wordCounter > 1 || theFirstLetterIsCapital);
+				stringBuilder.append(fieldName, wordStart + 1, wordEnd);
 			}
+			wordStart = wordEnd + 1;
+		}
+		return stringBuilder.toString();
+	}
 
+	static void appendFirstLetter(final StringBuilder stringBuilder, final char letter, final boolean upperCase) {
+		// ASCII letters except i and I are not affected by the locale
+		if (letter >= 'a' && letter <= 'z' && letter != 'i') {
+			stringBuilder.append(upperCase ? (char) (letter - 'a' + 'A') : letter);
+		} else if (letter >= 'A' && letter <= 'Z' && letter != 'I') {
+			stringBuilder.append(upperCase ? letter : (char) (letter - 'A' + 'a'));
+		} else if (letter < 0x80 && !Character.isLetter(letter)) {
+			stringBuilder.append(letter);
+		} else {
+			stringBuilder.append(upperCase ? String.valueOf(letter).toUpperCase() : String.valueOf(letter).toLowerCase());
 		}
+	}
 
-		return getSanitisedFieldName(stringBuffer.toString());
+	/**
+	 * Converts the name of a list node or phase into the name of its enum
+	 * constant: accents are replaced, every character which is not allowed in
+	 * an identifier becomes '_', a leading digit is prefixed with '_' and the
+	 * name is converted to upper case
+	 *
+	 * @param name
+	 *            the name of the list node or phase
+	 * @return the name of the enum constant
+	 */
+	public static String enumConstantName(final String name) {
+		return ENUM_CONSTANT_NAMES.computeIfAbsent(name, GeneratorHelper::toEnumConstantName);
+	}
+
+	private static String toEnumConstantName(final String name) {
+		final String unaccented = removeAccents(name);
+		final StringBuilder stringBuilder = new StringBuilder(unaccented.length() + 1);
+		if (!unaccented.isEmpty() && unaccented.charAt(0) >= '0' && unaccented.charAt(0) <= '9') {
+			stringBuilder.append('_');
+		}
+		int i = 0;
+		while (i < unaccented.length()) {
+			final int codePoint = unaccented.codePointAt(i);
+			if (isWordCharacter(codePoint)) {
+				stringBuilder.append((char) codePoint);
+			} else {
+				stringBuilder.append('_');
+			}
+			i += Character.charCount(codePoint);
+		}
+		return handleSingeUnderscoreEnum(stringBuilder.toString().toUpperCase());
+	}
+
+	/**
+	 * Same as \w in a regular expression
+	 */
+	private static boolean isWordCharacter(final int codePoint) {
+		return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z') || (codePoint >= '0' && codePoint <= '9') || codePoint == '_';
 	}
 
 	public static String convertToUpperCase(final String fieldName) {
@@ -123,6 +208,52 @@ public final class GeneratorHelper {
 		throw new UnsupportedOperationException("type: " + field.getFieldType() + "is not supported!");
 	}
 
+	/**
+	 * @param field
+	 *            The field
+	 * @return The name of the constant holding the descriptor of the field in
+	 *         its model
+	 */
+	public static String getFieldDescriptorName(final FieldMetadata field) {
+		return "FIELD_" + convertToUpperCase(field.getName());
+	}
+
+	/**
+	 * @param field
+	 *            The field
+	 * @return The type of the value held by the field model of the field,
+	 *         references are held as EntityModel or a Collection of them
+	 */
+	public static String getFieldValueType(final FieldMetadata field) {
+		if (field.getFieldType() == FieldMetadata.FieldType.Reference) {
+			return field.getFieldTypedata().isMultiple() ? "java.util.Collection" : "EntityModel";
+		}
+		return getFieldTypeAsJava(field.getFieldType());
+	}
+
+	/**
+	 * @param referenceSignature
+	 *            The signature of a multi-reference getter, like
+	 *            java.util.Collection&lt;? extends WorkItemEntity&gt;
+	 * @return The type of the elements, like WorkItemEntity
+	 */
+	public static String getCollectionElementType(final String referenceSignature) {
+		String elementType = referenceSignature.substring(referenceSignature.indexOf('<') + 1, referenceSignature.lastIndexOf('>'));
+		if (elementType.startsWith("? extends ")) {
+			elementType = elementType.substring("? extends ".length());
+		}
+		return elementType;
+	}
+
+	/**
+	 * @param field
+	 *            The field
+	 * @return The maximum length of a string field, -1 for all other fields
+	 */
+	public static long getMaxLength(final FieldMetadata field) {
+		return field.getFieldType() == FieldMetadata.FieldType.String ? field.getMaxLength() : -1;
+	}
+
 	public static String getSubTypeOf(final EntityMetadata entityMetadata) {
 		final Optional<Feature> subTypeOfFeature = getSubTypeOfFeature(entityMetadata);
 		return (subTypeOfFeature.isPresent() ? camelCaseFieldName(((SubTypesOfFeature) subTypeOfFeature.get()).getType()) : "Typed") + "EntityModel";
@@ -168,6 +299,23 @@ public final class GeneratorHelper {
 
 	public static ReferenceMetadata getAllowedSuperTypesForReference(final FieldMetadata fieldMetadata,
 			final Collection<EntityMetadata> entityMetadataCollection) {
+		final Map<String, EntityMetadata> entityMetadataByName = new HashMap<>();
+		entityMetadataCollection.forEach(entityMetadata -> entityMetadataByName.putIfAbsent(entityMetadata.getName(), entityMetadata));
+		return getAllowedSuperTypesForReference(fieldMetadata, entityMetadataByName);
+	}
+
+	/**
+	 * Resolves the targets of a reference field
+	 *
+	 * @param fieldMetadata
+	 *            the field
+	 * @param entityMetadataByName
+	 *            the metadata of all entities mapped by their name
+	 * @return the reference metadata or null if the field is no reference
+	 * @see ReferenceResolver
+	 */
+	public static ReferenceMetadata getAllowedSuperTypesForReference(final FieldMetadata fieldMetadata,
+			final Map<String, EntityMetadata> entityMetadataByName) {
 		final ReferenceMetadata referenceMetadata = new ReferenceMetadata();
 
 		if (fieldMetadata.getFieldType() != FieldMetadata.FieldType.Reference) {
@@ -179,14 +327,11 @@ public final class GeneratorHelper {
 
 		for (FieldMetadata.Target target : targets) {
 			final String type = target.getType();
-			final Optional<EntityMetadata> matchingEntityMetadata = entityMetadataCollection.stream()
-					.filter(entityMetadata -> entityMetadata.getName().equals(type))
-					.findAny();
-			if (matchingEntityMetadata.isPresent()) {
+			final EntityMetadata matchedEntityMetadata = entityMetadataByName.get(type);
+			if (matchedEntityMetadata != null) {
 				String camelCaseFieldName = camelCaseFieldName(type);
 				referenceMetadata.allowedReferencesForAnnotation.add(camelCaseFieldName + "EntityModel.class");
 				referenceMetadata.referenceTypes.add(type);
-				final EntityMetadata matchedEntityMetadata = matchingEntityMetadata.get();
 				final Optional<Feature> subTypeOfFeature = getSubTypeOfFeature(matchedEntityMetadata);
 				final String typedType = camelCaseFieldName(subTypeOfFeature.isPresent() ? (((SubTypesOfFeature) subTypeOfFeature.get()).getType()) : type);
 				referenceMetadata.typedType = typedType + "Entity";
@@ -212,7 +357,9 @@ public final class GeneratorHelper {
 		// the Octane DB?! cache?
 		if (fieldTypedata.isMultiple() && referenceMetadata.referenceTypes.size() == 1 && referenceMetadata.hasTypedReturn()
 				&& referenceMetadata.hasNonTypedReturn()) {
-			System.out.println("Apply HACK in entity '" + fieldMetadata.getEntityName() + "' for multi-referenced field '" + fieldMetadata.getName() + "'");
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Apply HACK in entity '{}' for multi-referenced field '{}'", fieldMetadata.getEntityName(), fieldMetadata.getName());
+			}
 			referenceMetadata.hasNonTypedReturn = false;
 			referenceMetadata.referenceClassForSignature = getReferenceSignature(fieldTypedata.isMultiple(), referenceMetadata.hasTypedReturn, "Entity");
 		}
@@ -257,6 +404,139 @@ public final class GeneratorHelper {
 		return stringBuilder.toString();
 	}
 
+	/**
+	 * The position of one field in the slot arrays of a flat model
+	 */
+	public static final class FlatSlot {
+		public static final String OBJECT = "object";
+		public static final String LONG = "long";
+		public static final String FLOAT = "float";
+		public static final String BOOLEAN = "boolean";
+
+		private final FieldMetadata field;
+		private final int fieldIndex;
+		private final String kind;
+		private final int slot;
+
+		FlatSlot(final FieldMetadata field, final int fieldIndex, final String kind, final int slot) {
+			this.field = field;
+			this.fieldIndex = fieldIndex;
+			this.kind = kind;
+			this.slot = slot;
+		}
+
+		public FieldMetadata getField() {
+			return field;
+		}
+
+		/**
+		 * @return The index of the field in FIELDS of the entity model
+		 */
+		public int getFieldIndex() {
+			return fieldIndex;
+		}
+
+		/**
+		 * @return {@link #OBJECT}, {@link #LONG}, {@link #FLOAT} or
+		 *         {@link #BOOLEAN}
+		 */
+		public String getKind() {
+			return kind;
+		}
+
+		/**
+		 * @return The index in the array of the kind
+		 */
+		public int getSlot() {
+			return slot;
+		}
+
+		public boolean isPrimitive() {
+			return !OBJECT.equals(kind);
+		}
+
+		/**
+		 * @return The name of the array holding the value
+		 */
+		public String getArrayName() {
+			return kind + "s";
+		}
+
+		/**
+		 * @return The type of the getter and the setter, the boxed type for
+		 *         primitive slots
+		 */
+		public String getJavaType() {
+			if (field.getFieldType() == FieldMetadata.FieldType.Reference) {
+				return field.getFieldTypedata().isMultiple() ? "java.util.Collection<EntityModel>" : "EntityModel";
+			}
+			return getFieldTypeAsJava(field.getFieldType());
+		}
+
+		public String getMethodName() {
+			return camelCaseFieldName(field.getName());
+		}
+
+		public String getParamName() {
+			return getSanitisedFieldName(camelCaseFieldName(field.getName(), false));
+		}
+
+		public String getFieldModel() {
+			return GeneratorHelper.getFieldModel(field);
+		}
+	}
+
+	/**
+	 * Assigns the slots of a flat model, the slots of every kind are numbered
+	 * in the order of the fields
+	 *
+	 * @param fieldMetadata
+	 *            The fields sorted like FIELDS of the entity model
+	 * @return One slot per field
+	 */
+	public static List<FlatSlot> flatSlots(final List<FieldMetadata> fieldMetadata) {
+		final List<FlatSlot> flatSlots = new ArrayList<>(fieldMetadata.size());
+		final Map<String, Integer> slotCounts = new HashMap<>();
+		for (int i = 0; i < fieldMetadata.size(); ++i) {
+			final FieldMetadata field = fieldMetadata.get(i);
+			final String kind;
+			switch (field.getFieldType()) {
+			case Integer:
+				kind = FlatSlot.LONG;
+				break;
+			case Float:
+				kind = FlatSlot.FLOAT;
+				break;
+			case Boolean:
+				kind = FlatSlot.BOOLEAN;
+				break;
+			default:
+				kind = FlatSlot.OBJECT;
+				break;
+			}
+			final int slot = slotCounts.merge(kind, 1, Integer::sum) - 1;
+			flatSlots.add(new FlatSlot(field, i, kind, slot));
+		}
+		return flatSlots;
+	}
+
+	/**
+	 * @param flatSlots
+	 *            The slots of a flat model
+	 * @param kind
+	 *            The kind of the slots
+	 * @return The length of the array of the kind
+	 */
+	public static int countFlatSlots(final List<FlatSlot> flatSlots, final String kind) {
+		int count = 0;
+		for (final FlatSlot flatSlot : flatSlots) {
+			if (flatSlot.getKind().equals(kind)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
 	public static final class EntityMetadataWrapper {
 		com.hpe.adm.nga.sdk.model.EntityMetadata.AvailableMethods[] availableMethods = new com.hpe.adm.nga.sdk.model.EntityMetadata.AvailableMethods[0];
 		String url;
@@ -308,8 +588,16 @@ public final class GeneratorHelper {
 	 * @return cleaned String
 	 */
 	public final static String removeAccents(final String input) {
-		final StringBuffer result = new StringBuffer();
-		for (int i = 0; i < input.length(); i++) {
+		int firstAccent = 0;
+		while (firstAccent < input.length() && input.charAt(firstAccent) < '\u00C0') {
+			firstAccent++;
+		}
+		if (firstAccent == input.length()) {
+			return input;
+		}
+		final StringBuilder result = new StringBuilder(input.length() + 8);
+		result.append(input, 0, firstAccent);
+		for (int i = firstAccent; i < input.length(); i++) {
 			switch (input.charAt(i)) {
 			case '\u00C0': // À
 			case '\u00C1': // Á
@@ -447,10 +735,12 @@ public final class GeneratorHelper {
 	 * @return "_NONE" if enum has name '_', else original name wil be returned
 	 */
 	public final static String handleSingeUnderscoreEnum(final String input) {
-		if (input.replaceAll("\\_", "").length() == 0) {
-			return "_NONE";
+		for (int i = 0; i < input.length(); i++) {
+			if (input.charAt(i) != '_') {
+				return input;
+			}
 		}
-		return input;
+		return "_NONE";
 	}
 
 	public static APIMode TECHNICAL_PREVIEW_APIMODE = new APIMode() {
@@ -0,0 +1,1366 @@
+package eu.emundo.generator.generate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.hpe.adm.nga.sdk.metadata.EntityMetadata;
+import com.hpe.adm.nga.sdk.metadata.FieldMetadata;
+
+/**
+ * <p>
+ * Writes the same classes as the Velocity templates directly from Java.
+ * </p>
+ * <p>
+ * Every file is built in one {@link StringBuilder} without reflection, which
+ * is considerably faster than rendering the templates. The generated code is
+ * equivalent to the templates, only the whitespace differs. Changes to a
+ * template have to be made here as well.
+ * </p>
+ */
+public final class JavaCodeEmitter implements CodeEmitter {
+
+	private static final String GENERATED_ANNOTATION = "@Generated(\"sdk-generate-entity-models-maven-plugin\")\n";
+
+	@Override
+	public void emit(final Kind kind, final Map<String, Object> context, final Writer writer) throws IOException {
+		final StringBuilder out = new StringBuilder(8192);
+		switch (kind) {
+		case ENTITY_MODEL:
+			new EntityModelEmitter(context, out).emit();
+			break;
+		case ENTITY:
+			emitEntity(context, out);
+			break;
+		case ENTITY_LIST:
+			emitEntityList(context, out);
+			break;
+		case PHASES:
+			emitPhases(context, out);
+			break;
+		case LIST:
+			emitList(context, out);
+			break;
+		case FIELD_DESCRIPTOR:
+			emitFieldDescriptor(out);
+			break;
+		case FLAT_MODEL:
+			emitFlatModel(context, out);
+			break;
+		case ENTITY_TYPE_REGISTRY:
+			emitEntityTypeRegistry(context, out);
+			break;
+		case IMMUTABLE_REFERENCE:
+			emitImmutableReference(out);
+			break;
+		}
+		writer.append(out);
+	}
+
+	private static void emitEntity(final Map<String, Object> context, final StringBuilder out) {
+		out.append("package com.hpe.adm.nga.sdk.model;\n\n");
+		out.append("import javax.annotation.Generated;\n\n");
+		out.append("/**\n * ").append(context.get("name")).append(" entity\n */\n");
+		out.append(GENERATED_ANNOTATION);
+		out.append("public interface ").append(context.get("interfaceName")).append(" extends ").append(context.get("superInterfaceName")).append(" {}\n");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void emitEntityList(final Map<String, Object> context, final StringBuilder out) {
+		final String type = (String) context.get("type");
+		final String url = (String) context.get("url");
+		final boolean hasGet = Boolean.TRUE.equals(context.get("hasGet"));
+		final boolean hasCreate = Boolean.TRUE.equals(context.get("hasCreate"));
+		final boolean hasUpdate = Boolean.TRUE.equals(context.get("hasUpdate"));
+		final boolean hasDelete = Boolean.TRUE.equals(context.get("hasDelete"));
+
+		out.append("package com.hpe.adm.nga.sdk.entities;\n\n");
+		out.append("import javax.annotation.Generated;\n\n");
+		out.append("import com.hpe.adm.nga.sdk.entities.create.CreateTypedEntities;\n");
+		out.append("import com.hpe.adm.nga.sdk.entities.delete.DeleteTypedEntities;\n");
+		out.append("import com.hpe.adm.nga.sdk.entities.delete.DeleteTypedEntity;\n");
+		out.append("import com.hpe.adm.nga.sdk.entities.get.GetTypedEntities;\n");
+		out.append("import com.hpe.adm.nga.sdk.entities.get.GetTypedEntity;\n");
+		out.append("import com.hpe.adm.nga.sdk.entities.update.UpdateTypedEntities;\n");
+		out.append("import com.hpe.adm.nga.sdk.entities.update.UpdateTypedEntity;\n");
+		out.append("import com.hpe.adm.nga.sdk.model.").append(type).append("EntityModel;\n");
+		out.append("import com.hpe.adm.nga.sdk.network.OctaneHttpClient;\n\n");
+		out.append("/**\n * Generated file.  Do not edit!\n */\n");
+		out.append(GENERATED_ANNOTATION);
+		out.append("public final class ").append(type).append("EntityList extends TypedEntityList {\n\n");
+		out.append("    private final OctaneHttpClient octaneHttpClient;\n");
+		out.append("    private final String baseDomain;\n\n");
+
+		appendFieldsEnum(out, "AvailableFields", (Collection<FieldMetadata>) context.get("availableFields"));
+		appendFieldsEnum(out, "SortableFields", (Collection<FieldMetadata>) context.get("sortableFields"));
+
+		out.append("    /**\n");
+		out.append("     * Creates a new object.  This represents an entity collection\n");
+		out.append("     *\n");
+		out.append("     * @param octaneHttpClient - Http Client\n");
+		out.append("     * @param baseDomain - Domain Name\n");
+		out.append("     */\n");
+		out.append("    public ").append(type).append("EntityList(final OctaneHttpClient octaneHttpClient, final String baseDomain) {\n");
+		out.append("        this.octaneHttpClient = octaneHttpClient;\n");
+		out.append("        this.baseDomain = baseDomain;\n");
+		out.append("    }\n\n");
+		out.append("    public ").append(type).append("Entities at(final String entityId) {\n");
+		out.append("        return new ").append(type).append("Entities(entityId);\n");
+		out.append("    }\n\n");
+
+		for (final String crudMethod : crudMethods(hasGet, hasCreate, hasUpdate, hasDelete)) {
+			out.append("    public ").append(crudMethod).append(type).append("Entities ").append(crudMethod.toLowerCase()).append("() {\n");
+			out.append("        return new ").append(crudMethod).append(type).append("Entities(octaneHttpClient, baseDomain);\n");
+			out.append("    }\n\n");
+		}
+
+		out.append("    /**\n");
+		out.append("     * This class hold the ").append(type).append("Entities object(An object that represent one ").append(type).append("Entity )\n");
+		out.append("     */\n");
+		out.append("    public class ").append(type).append("Entities {\n\n");
+		out.append("        private final String entityId;\n\n");
+		out.append("        /**\n");
+		out.append("         * Set entityId parameter\n");
+		out.append("         *\n");
+		out.append("         * @param entityId The entity id\n");
+		out.append("         */\n");
+		out.append("        ").append(type).append("Entities(final String entityId) {\n");
+		out.append("            this.entityId = entityId;\n");
+		out.append("        }\n");
+		for (final String crudMethod : crudMethods(hasGet, false, hasUpdate, hasDelete)) {
+			out.append("\n        /**\n");
+			out.append("         * getter of a ").append(crudMethod).append(type).append("Entity object with specific entity\n");
+			out.append("         *\n");
+			out.append("         * @return The ").append(crudMethod).append(type).append("Entity object\n");
+			out.append("         */\n");
+			out.append("        public ").append(crudMethod).append(type).append("Entity ").append(crudMethod.toLowerCase()).append("() {\n");
+			out.append("            return new ").append(crudMethod).append(type).append("Entity(octaneHttpClient, baseDomain, entityId);\n");
+			out.append("        }\n");
+		}
+		out.append("    }\n");
+
+		if (hasGet) {
+			appendCrudClass(out, "Get", type, url, true);
+			appendCrudClass(out, "Get", type, url, false);
+		}
+		if (hasCreate) {
+			appendCrudClass(out, "Create", type, url, true);
+		}
+		if (hasUpdate) {
+			appendCrudClass(out, "Update", type, url, true);
+			appendCrudClass(out, "Update", type, url, false);
+		}
+		if (hasDelete) {
+			appendCrudClass(out, "Delete", type, url, true);
+			appendCrudClass(out, "Delete", type, url, false);
+		}
+		out.append("}\n");
+	}
+
+	private static String[] crudMethods(final boolean hasGet, final boolean hasCreate, final boolean hasUpdate, final boolean hasDelete) {
+		final String[] crudMethods = new String[4];
+		int count = 0;
+		if (hasGet) {
+			crudMethods[count++] = "Get";
+		}
+		if (hasCreate) {
+			crudMethods[count++] = "Create";
+		}
+		if (hasUpdate) {
+			crudMethods[count++] = "Update";
+		}
+		if (hasDelete) {
+			crudMethods[count++] = "Delete";
+		}
+		final String[] result = new String[count];
+		System.arraycopy(crudMethods, 0, result, 0, count);
+		return result;
+	}
+
+	private static void appendFieldsEnum(final StringBuilder out, final String enumName, final Collection<FieldMetadata> fields) {
+		out.append("    public enum ").append(enumName).append(" implements TypedEntityList.").append(enumName).append(" {\n");
+		final Iterator<FieldMetadata> iterator = fields.iterator();
+		while (iterator.hasNext()) {
+			final FieldMetadata field = iterator.next();
+			out.append("        /**\n");
+			out.append("         * Label: ").append(field.getLabel()).append('\n');
+			appendDescription(out, "         ", field);
+			out.append("         */\n");
+			out.append("        ").append(GeneratorHelper.convertToUpperCase(field.getName())).append("(\"").append(field.getName()).append("\")");
+			out.append(iterator.hasNext() ? ",\n" : ";\n");
+		}
+		out.append('\n');
+		out.append("        private final String fieldName;\n\n");
+		out.append("        ").append(enumName).append("(final String fieldName) {\n");
+		out.append("            this.fieldName = fieldName;\n");
+		out.append("        }\n\n");
+		out.append("        public String getFieldName() {\n");
+		out.append("            return fieldName;\n");
+		out.append("        }\n");
+		out.append("    }\n\n");
+	}
+
+	private static void appendCrudClass(final StringBuilder out, final String crudMethod, final String type, final String url, final boolean isMultiple) {
+		final String entityEntities = isMultiple ? "Entities" : "Entity";
+		final String className = crudMethod + type + entityEntities;
+		out.append('\n');
+		out.append("    public final class ").append(className).append(" extends ").append(crudMethod).append("Typed").append(entityEntities).append('<');
+		out.append(type).append("EntityModel");
+		if (!"Delete".equals(crudMethod) || isMultiple) {
+			out.append(", ").append(className);
+		}
+		if ("Get".equals(crudMethod)) {
+			out.append(", AvailableFields");
+			if (isMultiple) {
+				out.append(", SortableFields");
+			}
+		}
+		out.append("> {\n");
+		out.append("        ").append(className).append("(final OctaneHttpClient octaneHttpClient, final String baseDomain");
+		if (!isMultiple) {
+			out.append(", final String entityId");
+		}
+		out.append(") {\n");
+		out.append("            super(").append(type).append("EntityModel.class, octaneHttpClient, baseDomain + \"").append(url).append('"');
+		if (!isMultiple) {
+			out.append(", entityId");
+		}
+		out.append(");\n");
+		out.append("        }\n");
+		out.append("    }\n");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void emitPhases(final Map<String, Object> context, final StringBuilder out) {
+		final Map<String, List<String[]>> phaseMap = (Map<String, List<String[]>>) context.get("phaseMap");
+
+		out.append("package com.hpe.adm.nga.sdk.enums;\n\n");
+		out.append("import javax.annotation.Generated;\n\n");
+		out.append("import com.hpe.adm.nga.sdk.model.EntityModel;\n");
+		out.append("import com.hpe.adm.nga.sdk.model.ImmutableReference;\n");
+		out.append("import com.hpe.adm.nga.sdk.model.StringFieldModel;\n\n");
+		out.append("/**\n * Generated class - do not edit!\n */\n");
+		out.append(GENERATED_ANNOTATION);
+		out.append("public final class Phases {\n");
+		for (final Map.Entry<String, List<String[]>> phase : phaseMap.entrySet()) {
+			final String phaseType = phase.getKey() + "Phase";
+			out.append("\n    /**\n");
+			out.append("     * Phases for \"").append(phase.getValue().get(0)[3]).append("\" entity\n");
+			out.append("     */\n");
+			out.append("    public enum ").append(phaseType).append(" {\n");
+			final Iterator<String[]> iterator = phase.getValue().iterator();
+			while (iterator.hasNext()) {
+				final String[] phaseValue = iterator.next();
+				out.append("        /**\n");
+				out.append("         * ").append(phaseValue[2]).append('\n');
+				out.append("         */\n");
+				out.append("        ").append(phaseValue[1]).append("(\"").append(phaseValue[0]).append("\")").append(iterator.hasNext() ? ",\n" : ";\n");
+			}
+			out.append('\n');
+			out.append("        private static final java.util.Map<String, ").append(phaseType).append("> BY_ID;\n\n");
+			out.append("        static {\n");
+			out.append("            final java.util.Map<String, ").append(phaseType).append("> byId = new java.util.HashMap<>();\n");
+			out.append("            for (final ").append(phaseType).append(" phase : values()) {\n");
+			out.append("                byId.putIfAbsent(phase.id, phase);\n");
+			out.append("            }\n");
+			out.append("            BY_ID = java.util.Collections.unmodifiableMap(byId);\n");
+			out.append("        }\n\n");
+			out.append("        private final String id;\n");
+			out.append("        private final ImmutableReference referenceModel;\n\n");
+			out.append("        ").append(phaseType).append("(final String id) {\n");
+			out.append("            this.id = id;\n");
+			out.append("            this.referenceModel = new ImmutableReference(id, \"phase\");\n");
+			out.append("        }\n\n");
+			out.append("        public final String getId() {\n");
+			out.append("            return id;\n");
+			out.append("        }\n\n");
+			out.append("        public static ").append(phaseType).append(" getPhaseFromId(String id) {\n");
+			out.append("            return BY_ID.get(id);\n");
+			out.append("        }\n\n");
+			out.append("        public final EntityModel getAsEntityModel() {\n");
+			out.append("            final EntityModel entityModel = new EntityModel();\n");
+			out.append("            entityModel.setValue(new StringFieldModel(\"id\", id));\n");
+			out.append("            entityModel.setValue(new StringFieldModel(\"type\", \"phase\"));\n");
+			out.append("            return entityModel;\n");
+			out.append("        }\n\n");
+			out.append("        /**\n");
+			out.append("         * @return the reference to this phase shared by the setters of the models, cannot be modified\n");
+			out.append("         */\n");
+			out.append("        public final ImmutableReference getReferenceModel() {\n");
+			out.append("            return referenceModel;\n");
+			out.append("        }\n\n");
+			out.append("        public static ").append(phaseType).append(" getFromEntityModel(final EntityModel entityModel) {\n");
+			out.append("            return ").append(phaseType).append(".getPhaseFromId(entityModel.getId());\n");
+			out.append("        }\n");
+			out.append("    }\n");
+		}
+		out.append("}\n");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void emitList(final Map<String, Object> context, final StringBuilder out) {
+		final List<String[]> listItems = (List<String[]>) context.get("listItems");
+		final List<String> deprecatedItems = (List<String>) context.get("deprecatedItems");
+		final String[] rootModel = listItems.get(0);
+		final String rootModelName = rootModel[0];
+
+		out.append("package com.hpe.adm.nga.sdk.enums.lists;\n\n");
+		out.append("import java.util.Arrays;\n\n");
+		out.append("import javax.annotation.Generated;\n\n");
+		out.append("import com.hpe.adm.nga.sdk.model.EntityModel;\n");
+		out.append("import com.hpe.adm.nga.sdk.model.ImmutableReference;\n");
+		out.append("import com.hpe.adm.nga.sdk.model.StringFieldModel;\n\n");
+		out.append("/**\n * ");
+		if (listItems.size() <= 1) {
+			out.append("EMPTY! ");
+		}
+		out.append(rootModel[2]).append("\n *\n * Generated class - do not edit!\n */\n");
+		if ("1".equals(rootModel[3])) {
+			out.append("@Deprecated\n");
+		}
+		out.append(GENERATED_ANNOTATION);
+		out.append("public enum ").append(rootModelName).append(" {\n");
+		for (int i = 1; i < listItems.size(); ++i) {
+			final String[] listModel = listItems.get(i);
+			out.append("    /**\n");
+			out.append("     * ").append(listModel[2]).append('\n');
+			out.append("     */\n");
+			if ("1".equals(listModel[3])) {
+				out.append("    @Deprecated\n");
+			}
+			out.append("    ").append(listModel[0]).append("(\"").append(listModel[1]).append("\", \"").append(listModel[2]).append("\")");
+			out.append(i < listItems.size() - 1 ? ",\n" : ";\n");
+		}
+		if (listItems.size() <= 1) {
+			out.append("    /**\n");
+			out.append("     * List is empty!\n");
+			out.append("     * @deprecated this list should be regenerated\n");
+			out.append("     */\n");
+			out.append("    DEADBEEF(\"").append(rootModelName).append(" is empty!!\");\n");
+		}
+		out.append('\n');
+		out.append("    public static final String ROOT_ID = \"").append(rootModel[1]).append("\";\n\n");
+		out.append("    private static final java.util.Map<String, ").append(rootModelName).append("> BY_ID;\n");
+		out.append("    private static final java.util.Map<String, ").append(rootModelName).append("> BY_VALUE_IGNORE_CASE;\n\n");
+		out.append("    static {\n");
+		out.append("        final java.util.Map<String, ").append(rootModelName).append("> byId = new java.util.HashMap<>();\n");
+		out.append("        final java.util.Map<String, ").append(rootModelName).append("> byValueIgnoreCase = new java.util.HashMap<>();\n");
+		out.append("        for (final ").append(rootModelName).append(" listNode : values()) {\n");
+		out.append("            byId.putIfAbsent(listNode.id, listNode);\n");
+		out.append("            byValueIgnoreCase.putIfAbsent(foldCase(listNode.value), listNode);\n");
+		out.append("        }\n");
+		out.append("        BY_ID = java.util.Collections.unmodifiableMap(byId);\n");
+		out.append("        BY_VALUE_IGNORE_CASE = java.util.Collections.unmodifiableMap(byValueIgnoreCase);\n");
+		out.append("    }\n\n");
+		out.append("    private final String id;\n");
+		out.append("    private final String value;\n");
+		out.append("    private final ImmutableReference referenceModel;\n\n");
+		out.append("    ").append(rootModelName).append("(final String id) {\n");
+		out.append("        this.id = id;\n");
+		out.append("        this.value = \"DEADBEEF\";\n");
+		out.append("        this.referenceModel = new ImmutableReference(id, \"list_node\");\n");
+		out.append("    }\n\n");
+		out.append("    ").append(rootModelName).append("(final String id, final String value) {\n");
+		out.append("        this.id = id;\n");
+		out.append("        this.value = value;\n");
+		out.append("        this.referenceModel = new ImmutableReference(id, \"list_node\");\n");
+		out.append("    }\n\n");
+		out.append("    public final String getId() {\n");
+		out.append("        return id;\n");
+		out.append("    }\n\n");
+		out.append("    public final String getValue() {\n");
+		out.append("        return value;\n");
+		out.append("    }\n\n");
+		out.append("    public static ").append(rootModelName).append(" getListNodeFromId(final String id) {\n");
+		out.append("        return BY_ID.get(id);\n");
+		out.append("    }\n\n");
+		out.append("    public static ").append(rootModelName).append(" getListNodeFromValue(final String value) {\n");
+		out.append("        if (value == null) {\n");
+		out.append("            return null;\n");
+		out.append("        }\n");
+		out.append("        return BY_VALUE_IGNORE_CASE.get(foldCase(value));\n");
+		out.append("    }\n\n");
+		out.append("    /**\n");
+		out.append("     * Folds every char like {@link String#equalsIgnoreCase(String)} compares it, so that\n");
+		out.append("     * two values are equal ignoring case exactly if their folded values are equal.\n");
+		out.append("     */\n");
+		out.append("    private static String foldCase(final String value) {\n");
+		out.append("        final char[] chars = value.toCharArray();\n");
+		out.append("        for (int i = 0; i < chars.length; i++) {\n");
+		out.append("            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));\n");
+		out.append("        }\n");
+		out.append("        return new String(chars);\n");
+		out.append("    }\n\n");
+		out.append("    public final EntityModel getAsEntityModel() {\n");
+		out.append("        final EntityModel entityModel = new EntityModel();\n");
+		out.append("        entityModel.setValue(new StringFieldModel(\"id\", id));\n");
+		out.append("        entityModel.setValue(new StringFieldModel(\"type\", \"list_node\"));\n");
+		out.append("        return entityModel;\n");
+		out.append("    }\n\n");
+		out.append("    /**\n");
+		out.append("     * @return the reference to this list node shared by the setters of the models, cannot be modified\n");
+		out.append("     */\n");
+		out.append("    public final ImmutableReference getReferenceModel() {\n");
+		out.append("        return referenceModel;\n");
+		out.append("    }\n\n");
+		out.append("    public static ").append(rootModelName).append(" getFromEntityModel(final EntityModel entityModel) {\n");
+		out.append("        return ").append(rootModelName).append(".getListNodeFromId(entityModel.getId());\n");
+		out.append("    }\n\n");
+		out.append("    public static java.util.List<").append(rootModelName).append("> getDeprecatedListNodes() {\n");
+		if (deprecatedItems.isEmpty()) {
+			out.append("        return java.util.Collections.emptyList();\n");
+		} else {
+			out.append("        return Arrays.asList(\n");
+			final Iterator<String> iterator = deprecatedItems.iterator();
+			while (iterator.hasNext()) {
+				out.append("            ").append(iterator.next()).append(iterator.hasNext() ? ",\n" : "\n");
+			}
+			out.append("        );\n");
+		}
+		out.append("    }\n");
+		out.append("}\n");
+	}
+
+	private static void emitFieldDescriptor(final StringBuilder out) {
+		out.append("package com.hpe.adm.nga.sdk.model;\n\n");
+		out.append("import javax.annotation.Generated;\n\n");
+		out.append("/**\n");
+		out.append(" * Describes one field of a generated entity model, so that the fields can be\n");
+		out.append(" * iterated without reflection. The descriptors of a model are listed in its\n");
+		out.append(" * FIELDS array, the names are interned.\n");
+		out.append(" *\n");
+		out.append(" * Generated class. <b>Do not manually edit.</b>\n");
+		out.append(" */\n");
+		out.append(GENERATED_ANNOTATION);
+		out.append("public final class FieldDescriptor {\n\n");
+		out.append("    private final String name;\n");
+		out.append("    private final Class<?> javaType;\n");
+		out.append("    private final Class<? extends FieldModel> fieldModelClass;\n");
+		out.append("    private final boolean required;\n");
+		out.append("    private final boolean editable;\n");
+		out.append("    private final boolean sortable;\n");
+		out.append("    private final boolean filterable;\n");
+		out.append("    private final long maxLength;\n\n");
+		out.append("    FieldDescriptor(final String name, final Class<?> javaType, ");
+		out.append("final Class<? extends FieldModel> fieldModelClass, final boolean required,\n");
+		out.append("            final boolean editable, final boolean sortable, final boolean filterable, final long maxLength) {\n");
+		out.append("        this.name = name;\n");
+		out.append("        this.javaType = javaType;\n");
+		out.append("        this.fieldModelClass = fieldModelClass;\n");
+		out.append("        this.required = required;\n");
+		out.append("        this.editable = editable;\n");
+		out.append("        this.sortable = sortable;\n");
+		out.append("        this.filterable = filterable;\n");
+		out.append("        this.maxLength = maxLength;\n");
+		out.append("    }\n\n");
+		out.append("    public String getName() {\n");
+		out.append("        return name;\n");
+		out.append("    }\n\n");
+		out.append("    /**\n");
+		out.append("     * @return The type of the value of the field model, references are\n");
+		out.append("     *         EntityModels or a Collection of them\n");
+		out.append("     */\n");
+		out.append("    public Class<?> getJavaType() {\n");
+		out.append("        return javaType;\n");
+		out.append("    }\n\n");
+		out.append("    public Class<? extends FieldModel> getFieldModelClass() {\n");
+		out.append("        return fieldModelClass;\n");
+		out.append("    }\n\n");
+		for (final String flag : new String[] { "required", "editable", "sortable", "filterable" }) {
+			out.append("    public boolean is").append(Character.toUpperCase(flag.charAt(0))).append(flag, 1, flag.length()).append("() {\n");
+			out.append("        return ").append(flag).append(";\n");
+			out.append("    }\n\n");
+		}
+		out.append("    /**\n");
+		out.append("     * @return The maximum length of a string field or -1 for other fields\n");
+		out.append("     */\n");
+		out.append("    public long getMaxLength() {\n");
+		out.append("        return maxLength;\n");
+		out.append("    }\n\n");
+		out.append("    @Override\n");
+		out.append("    public String toString() {\n");
+		out.append("        return name;\n");
+		out.append("    }\n");
+		out.append("}\n");
+	}
+
+	private static void emitImmutableReference(final StringBuilder out) {
+		final String unsupported = "        throw new UnsupportedOperationException(\"The reference to \" + getId()"
+				+ " + \" is shared and cannot be modified\");\n";
+		out.append("package com.hpe.adm.nga.sdk.model;\n\n");
+		out.append("import javax.annotation.Generated;\n\n");
+		out.append("/**\n");
+		out.append(" * Reference to a list node or phase, created once per constant of the\n");
+		out.append(" * generated enums and shared by the setters of all models. It cannot be\n");
+		out.append(" * modified, the setters throw an {@link UnsupportedOperationException}.\n");
+		out.append(" *\n");
+		out.append(" * Generated class. <b>Do not manually edit.</b>\n");
+		out.append(" */\n");
+		out.append(GENERATED_ANNOTATION);
+		out.append("public final class ImmutableReference extends EntityModel {\n\n");
+		out.append("    /**\n");
+		out.append("     * @param id the id of the referenced list node or phase\n");
+		out.append("     * @param type list_node or phase\n");
+		out.append("     */\n");
+		out.append("    public ImmutableReference(final String id, final String type) {\n");
+		out.append("        super.setValue(new StringFieldModel(\"id\", id));\n");
+		out.append("        super.setValue(new StringFieldModel(\"type\", type));\n");
+		out.append("    }\n\n");
+		out.append("    @Override\n");
+		out.append("    public EntityModel setValue(final FieldModel fieldModel) {\n");
+		out.append(unsupported);
+		out.append("    }\n\n");
+		out.append("    @Override\n");
+		out.append("    public EntityModel setValues(final java.util.Set<FieldModel> values) {\n");
+		out.append(unsupported);
+		out.append("    }\n\n");
+		out.append("    @Override\n");
+		out.append("    public EntityModel removeValue(final String key) {\n");
+		out.append(unsupported);
+		out.append("    }\n");
+		out.append("}\n");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void emitEntityTypeRegistry(final Map<String, Object> context, final StringBuilder out) {
+		final String constructorType = "java.util.function.Function<EntityModel, ? extends TypedEntityModel>";
+		out.append("package com.hpe.adm.nga.sdk.model;\n\n");
+		out.append("import javax.annotation.Generated;\n\n");
+		out.append("/**\n");
+		out.append(" * Maps the names of the entity types to the constructors of their generated\n");
+		out.append(" * models, so that a reference is wrapped in the model of its type with one\n");
+		out.append(" * lookup.\n");
+		out.append(" *\n");
+		out.append(" * Generated class. <b>Do not manually edit.</b>\n");
+		out.append(" */\n");
+		out.append(GENERATED_ANNOTATION);
+		out.append("public final class EntityTypeRegistry {\n\n");
+		out.append("    private EntityTypeRegistry() {\n");
+		out.append("    }\n\n");
+		out.append("    /**\n");
+		out.append("     * @param type the name of an entity type\n");
+		out.append("     * @return the constructor of the generated model of the type or null if the type has no generated model\n");
+		out.append("     */\n");
+		out.append("    public static ").append(constructorType).append(" constructorOf(final String type) {\n");
+		out.append("        if (type == null) {\n");
+		out.append("            return null;\n");
+		out.append("        }\n");
+		out.append("        switch (type) {\n");
+		for (final String entityName : (List<String>) context.get("entityNames")) {
+			out.append("        case \"").append(entityName).append("\":\n");
+			out.append("            return ").append(GeneratorHelper.camelCaseFieldName(entityName)).append("EntityModel::new;\n");
+		}
+		out.append("        default:\n");
+		out.append("            return null;\n");
+		out.append("        }\n");
+		out.append("    }\n\n");
+		out.append("    /**\n");
+		out.append("     * @param entityModel an entity model with a type\n");
+		out.append("     * @return the entity model wrapped in the generated model of its type or null if the type has no generated model\n");
+		out.append("     */\n");
+		out.append("    public static TypedEntityModel wrap(final EntityModel entityModel) {\n");
+		out.append("        final FieldModel<?> type = entityModel.getValue(\"type\");\n");
+		out.append("        if (type == null || !(type.getValue() instanceof String)) {\n");
+		out.append("            return null;\n");
+		out.append("        }\n");
+		out.append("        final ").append(constructorType).append(" constructor = constructorOf((String) type.getValue());\n");
+		out.append("        return constructor == null ? null : constructor.apply(entityModel);\n");
+		out.append("    }\n");
+		out.append("}\n");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void emitFlatModel(final Map<String, Object> context, final StringBuilder out) {
+		final String className = GeneratorHelper.camelCaseFieldName(((EntityMetadata) context.get("entityMetadata")).getName());
+		final List<GeneratorHelper.FlatSlot> flatSlots = (List<GeneratorHelper.FlatSlot>) context.get("flatSlots");
+		out.append("package com.hpe.adm.nga.sdk.model;\n\n");
+		out.append("import javax.annotation.Generated;\n\n");
+		out.append("/**\n");
+		out.append(" * Flat storage of a {@link ").append(className).append("EntityModel}: the values are held in slot\n");
+		out.append(" * arrays following the order of {@link ").append(className).append("EntityModel#FIELDS}, the values\n");
+		out.append(" * of Integer, Float and Boolean fields in primitive arrays. An EntityModel is only\n");
+		out.append(" * created by {@link #toEntityModel()}.\n");
+		out.append(" * <br>\n");
+		out.append(" * Fields without slot are kept as they are. A null value of an Integer, Float or\n");
+		out.append(" * Boolean field is treated like a missing value.\n");
+		out.append(" *\n");
+		out.append(" * Generated class. <b>Do not manually edit.</b>\n");
+		out.append(" */\n");
+		out.append(GENERATED_ANNOTATION);
+		out.append("@SuppressWarnings(\"unchecked\")\n");
+		out.append("public final class ").append(className).append("FlatModel {\n\n");
+		out.append("    private final long[] present = new long[").append(context.get("presentWords")).append("];\n");
+		appendSlotArray(out, "Object", "objects", (Integer) context.get("objectSlots"));
+		appendSlotArray(out, "long", "longs", (Integer) context.get("longSlots"));
+		appendSlotArray(out, "float", "floats", (Integer) context.get("floatSlots"));
+		appendSlotArray(out, "boolean", "booleans", (Integer) context.get("booleanSlots"));
+		out.append("    private java.util.List<FieldModel> otherFields;\n\n");
+
+		out.append("    /**\n");
+		out.append("     * Copies the values of the given entity model\n");
+		out.append("     *\n");
+		out.append("     * @param entityModel the entity model of the SDK\n");
+		out.append("     * @return the flat model\n");
+		out.append("     */\n");
+		out.append("    public static ").append(className).append("FlatModel of(final EntityModel entityModel) {\n");
+		out.append("        final ").append(className).append("FlatModel flatModel = new ").append(className).append("FlatModel();\n");
+		out.append("        for (final FieldModel fieldModel : entityModel.getValues()) {\n");
+		out.append("            final Object value = fieldModel.getValue();\n");
+		out.append("            switch (").append(className).append("EntityModel.fieldIndex(fieldModel.getName())) {\n");
+		for (final GeneratorHelper.FlatSlot slot : flatSlots) {
+			out.append("            case ").append(slot.getFieldIndex()).append(":\n");
+			if (!slot.isPrimitive()) {
+				out.append("                flatModel.objects[").append(slot.getSlot()).append("] = value;\n");
+				out.append("                flatModel.setPresent(").append(slot.getFieldIndex()).append(");\n");
+			} else {
+				out.append("                if (value != null) {\n");
+				if (GeneratorHelper.FlatSlot.BOOLEAN.equals(slot.getKind())) {
+					out.append("                    flatModel.booleans[").append(slot.getSlot()).append("] = (Boolean) value;\n");
+				} else {
+					out.append("                    flatModel.").append(slot.getArrayName()).append('[').append(slot.getSlot()).append("] = ((Number) value).")
+							.append(slot.getKind()).append("Value();\n");
+				}
+				out.append("                    flatModel.setPresent(").append(slot.getFieldIndex()).append(");\n");
+				out.append("                }\n");
+			}
+			out.append("                break;\n");
+		}
+		out.append("            default:\n");
+		out.append("                if (!\"type\".equals(fieldModel.getName())) {\n");
+		out.append("                    if (flatModel.otherFields == null) {\n");
+		out.append("                        flatModel.otherFields = new java.util.ArrayList<>();\n");
+		out.append("                    }\n");
+		out.append("                    flatModel.otherFields.add(fieldModel);\n");
+		out.append("                }\n");
+		out.append("                break;\n");
+		out.append("            }\n");
+		out.append("        }\n");
+		out.append("        return flatModel;\n");
+		out.append("    }\n\n");
+
+		out.append("    /**\n");
+		out.append("     * Copies the values of the given entity model\n");
+		out.append("     *\n");
+		out.append("     * @param entityModel the typed entity model\n");
+		out.append("     * @return the flat model\n");
+		out.append("     */\n");
+		out.append("    public static ").append(className).append("FlatModel of(final ").append(className).append("EntityModel entityModel) {\n");
+		out.append("        return of(entityModel.getWrappedEntityModel());\n");
+		out.append("    }\n\n");
+
+		out.append("    /**\n");
+		out.append("     * @return a new entity model with the values of this flat model\n");
+		out.append("     */\n");
+		out.append("    public ").append(className).append("EntityModel toEntityModel() {\n");
+		out.append("        final ").append(className).append("EntityModel entityModel = new ").append(className).append("EntityModel();\n");
+		out.append("        final EntityModel wrappedEntityModel = entityModel.getWrappedEntityModel();\n");
+		for (final GeneratorHelper.FlatSlot slot : flatSlots) {
+			out.append("        if (isSet(").append(slot.getFieldIndex()).append(")) {\n");
+			out.append("            wrappedEntityModel.setValue(new ").append(slot.getFieldModel()).append("(\"").append(slot.getField().getName())
+					.append("\", ");
+			if (slot.isPrimitive()) {
+				out.append(slot.getArrayName()).append('[').append(slot.getSlot()).append(']');
+			} else {
+				out.append('(').append(slot.getJavaType()).append(") objects[").append(slot.getSlot()).append(']');
+			}
+			out.append("));\n");
+			out.append("        }\n");
+		}
+		out.append("        if (otherFields != null) {\n");
+		out.append("            for (final FieldModel fieldModel : otherFields) {\n");
+		out.append("                wrappedEntityModel.setValue(fieldModel);\n");
+		out.append("            }\n");
+		out.append("        }\n");
+		out.append("        return entityModel;\n");
+		out.append("    }\n\n");
+
+		out.append("    /**\n");
+		out.append("     * @param fieldIndex the index of the field in {@link ").append(className).append("EntityModel#FIELDS}\n");
+		out.append("     * @return whether the field has a value, which may be null for fields without primitive slot\n");
+		out.append("     */\n");
+		out.append("    public boolean isSet(final int fieldIndex) {\n");
+		out.append("        return (present[fieldIndex >>> 6] & (1L << fieldIndex)) != 0;\n");
+		out.append("    }\n\n");
+		out.append("    private void setPresent(final int fieldIndex) {\n");
+		out.append("        present[fieldIndex >>> 6] |= 1L << fieldIndex;\n");
+		out.append("    }\n\n");
+		out.append("    private void clear(final int fieldIndex) {\n");
+		out.append("        present[fieldIndex >>> 6] &= ~(1L << fieldIndex);\n");
+		out.append("    }\n");
+
+		for (final GeneratorHelper.FlatSlot slot : flatSlots) {
+			final String slotValue = slot.getArrayName() + '[' + slot.getSlot() + ']';
+			out.append("\n    /**\n");
+			out.append("     * @return ").append(slot.getField().getLabel()).append('\n');
+			out.append("     */\n");
+			out.append("    public ").append(slot.getJavaType()).append(" get").append(slot.getMethodName()).append("() {\n");
+			if (slot.isPrimitive()) {
+				out.append("        return isSet(").append(slot.getFieldIndex()).append(") ? ").append(slotValue).append(" : null;\n");
+			} else {
+				out.append("        return (").append(slot.getJavaType()).append(") ").append(slotValue).append(";\n");
+			}
+			out.append("    }\n");
+			if (slot.isPrimitive()) {
+				out.append("\n    /**\n");
+				out.append("     * @param defaultValue returned if the field has no value\n");
+				out.append("     * @return ").append(slot.getField().getLabel()).append('\n');
+				out.append("     */\n");
+				out.append("    public ").append(slot.getKind()).append(" get").append(slot.getMethodName()).append("(final ").append(slot.getKind())
+						.append(" defaultValue) {\n");
+				out.append("        return isSet(").append(slot.getFieldIndex()).append(") ? ").append(slotValue).append(" : defaultValue;\n");
+				out.append("    }\n");
+			}
+			if (slot.getField().isEditable()) {
+				final String paramName = slot.getParamName();
+				out.append("\n    public ").append(className).append("FlatModel set").append(slot.getMethodName()).append("(final ").append(slot.getJavaType())
+						.append(' ').append(paramName).append(") {\n");
+				out.append("        if (").append(paramName).append(" == null) {\n");
+				if (!slot.isPrimitive()) {
+					out.append("            ").append(slotValue).append(" = null;\n");
+				}
+				out.append("            clear(").append(slot.getFieldIndex()).append(");\n");
+				out.append("        } else {\n");
+				out.append("            ").append(slotValue).append(" = ").append(paramName).append(";\n");
+				out.append("            setPresent(").append(slot.getFieldIndex()).append(");\n");
+				out.append("        }\n");
+				out.append("        return this;\n");
+				out.append("    }\n");
+				if (slot.isPrimitive()) {
+					out.append("\n    public ").append(className).append("FlatModel set").append(slot.getMethodName()).append("(final ").append(slot.getKind())
+							.append(' ').append(paramName).append(") {\n");
+					out.append("        ").append(slotValue).append(" = ").append(paramName).append(";\n");
+					out.append("        setPresent(").append(slot.getFieldIndex()).append(");\n");
+					out.append("        return this;\n");
+					out.append("    }\n");
+				}
+			}
+		}
+		out.append("}\n");
+	}
+
+	private static void appendSlotArray(final StringBuilder out, final String type, final String name, final int length) {
+		if (length > 0) {
+			out.append("    private final ").append(type).append("[] ").append(name).append(" = new ").append(type).append('[').append(length).append("];\n");
+		}
+	}
+
+	private static void appendDescription(final StringBuilder out, final String indent, final FieldMetadata field) {
+		if (field.getDescription() != null && !field.getDescription().isEmpty()) {
+			out.append(indent).append("* <br>\n");
+			out.append(indent).append("* Description: ").append(field.getDescription()).append('\n');
+		}
+	}
+
+	/**
+	 * Writes one model, the counterpart of EntityModel.vm
+	 */
+	private static final class EntityModelEmitter {
+		private final StringBuilder out;
+		private final EntityMetadata entityMetadata;
+		private final String interfaceName;
+		private final List<FieldMetadata> fieldMetadata;
+		private final Map<String, String> logicalNameToListsMap;
+		private final ReferenceResolver referenceResolver;
+		private final GeneratorHelper.EntityMetadataWrapper entityMetadataWrapper;
+		private final Set<String> availablePhases;
+		private final List<List<String[]>> requiredFields;
+		private final TreeMap<String, List<String>> requiredFieldTypes;
+		private final boolean requiredFieldsBuilder;
+		private final Map<String, String> workspaceSpecificFields;
+		private final boolean referenceViews;
+		private final String className;
+
+		@SuppressWarnings("unchecked")
+		private EntityModelEmitter(final Map<String, Object> context, final StringBuilder out) {
+			this.out = out;
+			this.entityMetadata = (EntityMetadata) context.get("entityMetadata");
+			this.interfaceName = (String) context.get("interfaceName");
+			this.fieldMetadata = (List<FieldMetadata>) context.get("fieldMetadata");
+			this.logicalNameToListsMap = (Map<String, String>) context.get("logicalNameToListsMap");
+			this.referenceResolver = (ReferenceResolver) context.get("referenceResolver");
+			this.entityMetadataWrapper = (GeneratorHelper.EntityMetadataWrapper) context.get("entityMetadataWrapper");
+			this.availablePhases = (Set<String>) context.get("availablePhases");
+			this.requiredFields = (List<List<String[]>>) context.get("requiredFields");
+			this.requiredFieldTypes = (TreeMap<String, List<String>>) context.get("requiredFieldTypes");
+			this.requiredFieldsBuilder = Boolean.TRUE.equals(context.get("requiredFieldsBuilder"));
+			this.workspaceSpecificFields = (Map<String, String>) context.get("workspaceSpecificFields");
+			this.referenceViews = Boolean.TRUE.equals(context.get("referenceViews"));
+			this.className = GeneratorHelper.camelCaseFieldName(entityMetadata.getName());
+		}
+
+		private void emit() {
+			final String entityName = entityMetadata.getName();
+			out.append("package com.hpe.adm.nga.sdk.model;\n\n");
+			out.append("import javax.annotation.Generated;\n\n");
+			out.append("/**\n");
+			out.append(" * Entity Name: ").append(entityName).append('\n');
+			out.append(" * <br>\n");
+			out.append(" * Label: ").append(entityMetadata.getLabel()).append('\n');
+			out.append(" *\n");
+			out.append(" * Generated class. <b>Do not manually edit.</b>\n");
+			out.append(" */\n");
+			out.append(GENERATED_ANNOTATION);
+			out.append("@EntityMetadata(url = \"").append(entityMetadataWrapper.getUrl()).append("\", availableMethods = {");
+			for (final com.hpe.adm.nga.sdk.model.EntityMetadata.AvailableMethods availableMethod : entityMetadataWrapper.getAvailableMethods()) {
+				if (availableMethod != null) {
+					out.append("EntityMetadata.AvailableMethods.").append(availableMethod).append(", ");
+				}
+			}
+			out.append("} )\n");
+			out.append("public class ").append(className).append("EntityModel extends TypedEntityModel implements ").append(interfaceName).append(" {\n\n");
+			out.append("    public static final String ENTITY_URL = \"").append(entityMetadataWrapper.getUrl()).append("\";\n");
+			out.append("    public static final String ENTITY_TYPE = \"").append(entityName).append("\";\n\n");
+			fieldDescriptors();
+			out.append("    public ").append(className).append("EntityModel() {\n");
+			out.append("        super();\n");
+			out.append("        wrappedEntityModel.setValue(new StringFieldModel(\"type\", \"").append(entityName).append("\"));\n");
+			out.append("    }\n\n");
+			out.append("    public ").append(className).append("EntityModel(final EntityModel wrappedEntityModel) {\n");
+			out.append("        super(wrappedEntityModel);\n");
+			out.append("    }\n");
+			if (referenceViews) {
+				referenceViews();
+			}
+
+			if (requiredFieldsBuilder) {
+				requiredFieldsBuilder();
+			} else {
+				requiredFieldsForConstructor();
+			}
+
+			for (final FieldMetadata field : fieldMetadata) {
+				getter(field);
+				if (field.isEditable()) {
+					setter(field);
+				}
+			}
+			out.append("}\n");
+		}
+
+		private void fieldDescriptors() {
+			for (final FieldMetadata field : fieldMetadata) {
+				out.append("    public static final FieldDescriptor ").append(GeneratorHelper.getFieldDescriptorName(field));
+				out.append(" = new FieldDescriptor(\"");
+				out.append(field.getName()).append("\", ").append(GeneratorHelper.getFieldValueType(field)).append(".class, ");
+				out.append(GeneratorHelper.getFieldModel(field)).append(".class, ").append(field.isRequired()).append(", ").append(field.isEditable());
+				out.append(", ").append(field.isSortable()).append(", ").append(field.isFilterable()).append(", ").append(GeneratorHelper.getMaxLength(field));
+				out.append("L);\n");
+			}
+			out.append("\n    /**\n");
+			out.append("     * The descriptors of all fields sorted by name. Must not be modified\n");
+			out.append("     */\n");
+			out.append("    public static final FieldDescriptor[] FIELDS = {");
+			for (final FieldMetadata field : fieldMetadata) {
+				out.append(' ').append(GeneratorHelper.getFieldDescriptorName(field)).append(',');
+			}
+			out.append(" };\n\n");
+			out.append("    /**\n");
+			out.append("     * @param fieldName the name of a field\n");
+			out.append("     * @return the index of the field in {@link #FIELDS} or -1 if the entity has no such field\n");
+			out.append("     */\n");
+			out.append("    public static int fieldIndex(final String fieldName) {\n");
+			out.append("        if (fieldName == null) {\n");
+			out.append("            return -1;\n");
+			out.append("        }\n");
+			out.append("        switch (fieldName) {\n");
+			for (int i = 0; i < fieldMetadata.size(); ++i) {
+				out.append("        case \"").append(fieldMetadata.get(i).getName()).append("\":\n");
+				out.append("            return ").append(i).append(";\n");
+			}
+			out.append("        default:\n");
+			out.append("            return -1;\n");
+			out.append("        }\n");
+			out.append("    }\n\n");
+		}
+
+		private void referenceViews() {
+			out.append("\n    /**\n");
+			out.append("     * Read-only view of a multi-reference field, valid as long as the field holds\n");
+			out.append("     * the same collection with the same elements\n");
+			out.append("     */\n");
+			out.append("    private static final class ReferenceView {\n");
+			out.append("        private final java.util.Collection<EntityModel> value;\n");
+			out.append("        private final Object[] elements;\n");
+			out.append("        private final java.util.Collection<?> view;\n\n");
+			out.append("        private ReferenceView(final java.util.Collection<EntityModel> value, final java.util.Collection<?> view) {\n");
+			out.append("            this.value = value;\n");
+			out.append("            this.elements = value.toArray();\n");
+			out.append("            this.view = view;\n");
+			out.append("        }\n\n");
+			out.append("        private boolean isViewOf(final java.util.Collection<EntityModel> value) {\n");
+			out.append("            if (this.value != value || elements.length != value.size()) {\n");
+			out.append("                return false;\n");
+			out.append("            }\n");
+			out.append("            int i = 0;\n");
+			out.append("            for (final EntityModel element : value) {\n");
+			out.append("                if (elements[i++] != element) {\n");
+			out.append("                    return false;\n");
+			out.append("                }\n");
+			out.append("            }\n");
+			out.append("            return true;\n");
+			out.append("        }\n");
+			out.append("    }\n\n");
+			out.append("    /**\n");
+			out.append("     * The views of the multi-reference fields by field index. A slot is only\n");
+			out.append("     * replaced as a whole by an immutable view, so another thread sees either no\n");
+			out.append("     * view or a complete one\n");
+			out.append("     */\n");
+			out.append("    private ReferenceView[] referenceViews;\n\n");
+			out.append("    @SuppressWarnings(\"unchecked\")\n");
+			out.append("    private <T> java.util.Collection<T> cachedView(final int fieldIndex, final java.util.Collection<EntityModel> value) {\n");
+			out.append("        final ReferenceView[] views = referenceViews;\n");
+			out.append("        final ReferenceView referenceView = views == null ? null : views[fieldIndex];\n");
+			out.append("        return referenceView != null && referenceView.isViewOf(value) ? (java.util.Collection<T>) referenceView.view : null;\n");
+			out.append("    }\n\n");
+			out.append("    private <T> java.util.Collection<T> cacheView(final int fieldIndex, final java.util.Collection<EntityModel> value,");
+			out.append(" final java.util.List<T> view) {\n");
+			out.append("        ReferenceView[] views = referenceViews;\n");
+			out.append("        if (views == null) {\n");
+			out.append("            views = new ReferenceView[FIELDS.length];\n");
+			out.append("            referenceViews = views;\n");
+			out.append("        }\n");
+			out.append("        final java.util.Collection<T> readOnlyView = java.util.Collections.unmodifiableList(view);\n");
+			out.append("        views[fieldIndex] = new ReferenceView(value, readOnlyView);\n");
+			out.append("        return readOnlyView;\n");
+			out.append("    }\n\n");
+			out.append("    private void clearView(final int fieldIndex) {\n");
+			out.append("        final ReferenceView[] views = referenceViews;\n");
+			out.append("        if (views != null) {\n");
+			out.append("            views[fieldIndex] = null;\n");
+			out.append("        }\n");
+			out.append("    }\n");
+		}
+
+		private void requiredFieldsForConstructor() {
+			for (final List<String[]> requiredFieldList : SortHelper.sortRequiredFieldsByFieldName(requiredFields, "parent")) {
+				out.append("\n    public ").append(className).append("EntityModel(");
+				for (int i = 0; i < requiredFieldList.size(); ++i) {
+					if (i > 0) {
+						out.append(", ");
+					}
+					out.append("final ").append(requiredFieldList.get(i)[1]).append(' ').append(requiredFieldList.get(i)[0]);
+				}
+				out.append(") {\n");
+				out.append("        this();\n");
+				for (final String[] requiredFieldTuple : requiredFieldList) {
+					out.append("        set").append(GeneratorHelper.camelCaseFieldName(requiredFieldTuple[0]));
+					out.append('(').append(requiredFieldTuple[0]).append(");\n");
+				}
+				out.append("    }\n");
+			}
+		}
+
+		private void requiredFieldsBuilder() {
+			out.append("\n    /**\n");
+			out.append("     * Creates a builder for a model with all required fields\n");
+			out.append("     *\n");
+			out.append("     * @return the builder\n");
+			out.append("     */\n");
+			out.append("    public static Builder builder() {\n");
+			out.append("        return new Builder();\n");
+			out.append("    }\n\n");
+			out.append("    /**\n");
+			out.append("     * Sets all required fields. Used instead of constructors, as the allowed\n");
+			out.append("     * types of the required fields have too many combinations\n");
+			out.append("     */\n");
+			out.append("    public static final class Builder {\n");
+			out.append("        private final ").append(className).append("EntityModel entityModel = new ").append(className).append("EntityModel();\n");
+			out.append("        private final java.util.Set<String> missingFields = new java.util.TreeSet<>(java.util.Arrays.asList(");
+			final Iterator<String> names = requiredFieldTypes.keySet().iterator();
+			while (names.hasNext()) {
+				out.append('"').append(names.next()).append('"').append(names.hasNext() ? ", " : "");
+			}
+			out.append("));\n\n");
+			out.append("        private Builder() {\n");
+			out.append("        }\n");
+			for (final Map.Entry<String, List<String>> requiredFieldEntry : requiredFieldTypes.entrySet()) {
+				final String requiredFieldName = requiredFieldEntry.getKey();
+				final String setterName = "set" + GeneratorHelper.camelCaseFieldName(requiredFieldName);
+				for (final String requiredFieldType : requiredFieldEntry.getValue()) {
+					out.append("\n        public Builder ").append(setterName).append("(final ").append(requiredFieldType).append(' ');
+					out.append(requiredFieldName).append(") {\n");
+					out.append("            entityModel.").append(setterName).append("(java.util.Objects.requireNonNull(").append(requiredFieldName);
+					out.append(", \"").append(requiredFieldName).append("\"));\n");
+					out.append("            missingFields.remove(\"").append(requiredFieldName).append("\");\n");
+					out.append("            return this;\n");
+					out.append("        }\n");
+				}
+			}
+			out.append("\n        public ").append(className).append("EntityModel build() {\n");
+			out.append("            if (!missingFields.isEmpty()) {\n");
+			out.append("                throw new IllegalStateException(\"Missing required fields of ").append(entityMetadata.getName());
+			out.append(": \" + missingFields);\n");
+			out.append("            }\n");
+			out.append("            return entityModel;\n");
+			out.append("        }\n");
+			out.append("    }\n");
+		}
+
+		private boolean isPhase(final FieldMetadata field) {
+			return "phase".equals(field.getName()) && availablePhases.contains(className);
+		}
+
+		private boolean isListNode(final FieldMetadata field) {
+			return !"list_node".equals(entityMetadata.getName()) && "list_node".equals(field.getFieldTypedata().getTargets()[0].getType());
+		}
+
+		private String listName(final FieldMetadata field) {
+			return logicalNameToListsMap.get(field.getFieldTypedata().getTargets()[0].logicalName());
+		}
+
+		private void fieldMetadataAnnotations(final FieldMetadata field) {
+			out.append("    @FieldMetadata(filterable = ").append(field.isFilterable()).append(", sortable = ").append(field.isSortable());
+			out.append(", required = ").append(field.isRequired());
+			if (field.getFieldType() == FieldMetadata.FieldType.String) {
+				out.append(", maxLength = ").append(field.getMaxLength()).append('L');
+			} else if (field.getFieldType() == FieldMetadata.FieldType.Integer || field.getFieldType() == FieldMetadata.FieldType.Float) {
+				out.append(", minValue = ").append(field.getMinValue()).append("L, maxValue = ").append(field.getMaxValue()).append('L');
+			}
+			out.append(")\n");
+		}
+
+		private void multipleReferenceAnnotations(final GeneratorHelper.ReferenceMetadata referenceMetadata) {
+			if (referenceMetadata.hasTypedReturn() && (referenceMetadata.getReferenceTypes().size() > 1 || referenceMetadata.hasNonTypedReturn())) {
+				out.append("    @AllowedReferences({");
+				for (final String allowedReferenceForAnnotation : referenceMetadata.getAllowedReferencesForAnnotation()) {
+					out.append(allowedReferenceForAnnotation).append(", ");
+				}
+				out.append("})\n");
+			}
+		}
+
+		private void getter(final FieldMetadata field) {
+			out.append("\n    /**\n");
+			out.append("     * Label: ").append(field.getLabel()).append('\n');
+			appendDescription(out, "     ", field);
+			if (workspaceSpecificFields.containsKey(field.getName())) {
+				out.append("     * <br>\n");
+				out.append("     * Only available in workspaces: ").append(workspaceSpecificFields.get(field.getName())).append('\n');
+			}
+			out.append("     */\n");
+			if (isPhase(field)) {
+				getPhase();
+			} else if (field.getFieldType() == FieldMetadata.FieldType.Reference) {
+				getReference(field);
+			} else {
+				getNonReference(field);
+			}
+		}
+
+		private void getPhase() {
+			final String phaseType = "com.hpe.adm.nga.sdk.enums.Phases." + className + "Phase";
+			out.append("    public ").append(phaseType).append(" getPhase() {\n");
+			out.append("        final ReferenceFieldModel phase = (ReferenceFieldModel) wrappedEntityModel.getValue(\"phase\");\n");
+			out.append("        if (phase == null) {\n");
+			out.append("            return null;\n");
+			out.append("        }\n");
+			out.append("        final EntityModel referenceFieldModel = phase.getValue();\n");
+			out.append("        return ").append(phaseType).append(".getFromEntityModel(referenceFieldModel);\n");
+			out.append("    }\n");
+		}
+
+		private void getReference(final FieldMetadata field) {
+			final GeneratorHelper.ReferenceMetadata referenceMetadata = referenceResolver.getReferenceMetadata(entityMetadata.getName(), field);
+			if (isListNode(field)) {
+				if (field.getFieldTypedata().isMultiple()) {
+					getMultiListNode(field, listName(field));
+				} else {
+					getSingleListNode(field, listName(field));
+				}
+			} else if (field.getFieldTypedata().isMultiple()) {
+				getMultipleReference(field, referenceMetadata);
+			} else {
+				getSingleReference(field, referenceMetadata);
+			}
+			out.append("    }\n");
+		}
+
+		private void getSingleListNode(final FieldMetadata field, final String listName) {
+			final String variable = GeneratorHelper.getSanitisedFieldName(field.getName());
+			final String listType = "com.hpe.adm.nga.sdk.enums.lists." + listName;
+			out.append("    public ").append(listType).append(" get").append(GeneratorHelper.camelCaseFieldName(field.getName())).append("() {\n");
+			out.append("        final FieldModel<?> wrappedFieldModel = wrappedEntityModel.getValue(\"").append(field.getName()).append("\");\n");
+			out.append("        if (wrappedFieldModel != null && wrappedFieldModel instanceof ReferenceFieldModel) {\n");
+			out.append("            final ReferenceFieldModel ").append(variable).append(" = (ReferenceFieldModel) wrappedFieldModel;\n");
+			out.append("            if (").append(variable).append(" != null && ").append(variable).append(".getValue() != null) {\n");
+			out.append("                return ").append(listType).append(".getFromEntityModel(").append(variable).append(".getValue());\n");
+			out.append("            }\n");
+			out.append("        }\n");
+			out.append("        return null;\n");
+		}
+
+		private void getMultiListNode(final FieldMetadata field, final String listName) {
+			final String variable = GeneratorHelper.getSanitisedFieldName(field.getName());
+			final int fieldIndex = fieldMetadata.indexOf(field);
+			final String listType = "com.hpe.adm.nga.sdk.enums.lists." + listName;
+			out.append("    public java.util.Collection<").append(listType).append("> get").append(GeneratorHelper.camelCaseFieldName(field.getName()));
+			out.append("() {\n");
+			out.append("        final FieldModel<?> wrappedFieldModel = wrappedEntityModel.getValue(\"").append(field.getName()).append("\");\n");
+			out.append("        if (wrappedFieldModel != null && wrappedFieldModel instanceof MultiReferenceFieldModel) {\n");
+			out.append("            final MultiReferenceFieldModel ").append(variable).append(" = (MultiReferenceFieldModel) wrappedFieldModel;\n");
+			out.append("            if (").append(variable).append(" != null && ").append(variable).append(".getValue() != null) {\n");
+			out.append("                final java.util.Collection<EntityModel> value = ").append(variable).append(".getValue();\n");
+			out.append("                final java.util.Collection<").append(listType).append("> cachedView = cachedView(").append(fieldIndex)
+					.append(", value);\n");
+			out.append("                if (cachedView != null) {\n");
+			out.append("                    return cachedView;\n");
+			out.append("                }\n");
+			out.append("                final java.util.List<").append(listType).append("> view = new java.util.ArrayList<>(value.size());\n");
+			out.append("                for (final EntityModel entityModel : value) {\n");
+			out.append("                    view.add(").append(listType).append(".getFromEntityModel(entityModel));\n");
+			out.append("                }\n");
+			out.append("                return cacheView(").append(fieldIndex).append(", value, view);\n");
+			out.append("            }\n");
+			out.append("        }\n");
+			out.append("        return java.util.Collections.emptyList();\n");
+		}
+
+		private void getNonReference(final FieldMetadata field) {
+			final String variable = GeneratorHelper.getSanitisedFieldName(field.getName());
+			final String javaType = GeneratorHelper.getFieldTypeAsJava(field.getFieldType());
+			out.append("    public ").append(javaType).append(" get").append(GeneratorHelper.camelCaseFieldName(field.getName())).append("() {\n");
+			out.append("        final FieldModel ").append(variable).append(" = wrappedEntityModel.getValue(\"").append(field.getName()).append("\");\n");
+			out.append("        return ").append(variable).append(" == null ? null : (").append(javaType).append(") ");
+			out.append(variable).append(".getValue();\n");
+			out.append("    }\n");
+		}
+
+		private void getSingleReference(final FieldMetadata field, final GeneratorHelper.ReferenceMetadata referenceMetadata) {
+			final String variable = GeneratorHelper.getSanitisedFieldName(field.getName());
+			final boolean multipleTypes = referenceMetadata.getReferenceTypes().size() > 1;
+			multipleReferenceAnnotations(referenceMetadata);
+			out.append("    public ").append(referenceMetadata.getReferenceClassForSignature()).append(" get");
+			out.append(GeneratorHelper.camelCaseFieldName(field.getName())).append("() {\n");
+			out.append("        final FieldModel<?> wrappedFieldModel = wrappedEntityModel.getValue(\"").append(field.getName()).append("\");\n");
+			out.append("        if (wrappedFieldModel == null || !(wrappedFieldModel instanceof ReferenceFieldModel)) {\n");
+			out.append("            return null;\n");
+			out.append("        }\n\n");
+			out.append("        final ReferenceFieldModel ").append(variable).append(" = (ReferenceFieldModel) wrappedFieldModel;\n");
+			out.append("        if (").append(variable).append(" == null || ").append(variable).append(".getValue() == null) {\n");
+			out.append("            return null;\n");
+			out.append("        }\n");
+			out.append("        final EntityModel referenceFieldModel = ").append(variable).append(".getValue();\n");
+			if (referenceMetadata.hasTypedReturn() && multipleTypes) {
+				out.append("        final TypedEntityModel typedEntityModel = EntityTypeRegistry.wrap(referenceFieldModel);\n");
+				if (referenceMetadata.hasNonTypedReturn()) {
+					out.append("        if (typedEntityModel != null) {\n");
+				} else {
+					out.append("        if (typedEntityModel instanceof ").append(referenceMetadata.getTypedType()).append(") {\n");
+				}
+				out.append("            return (T) typedEntityModel;\n");
+				out.append("        }\n");
+			}
+			out.append("        return ");
+			if (referenceMetadata.hasNonTypedReturn()) {
+				out.append(multipleTypes ? "(T) " : "").append("referenceFieldModel");
+			} else if (multipleTypes) {
+				out.append("(T) new ").append(referenceMetadata.getTypedType()).append("Model(referenceFieldModel)");
+			} else {
+				out.append("new ").append(referenceMetadata.getReferenceClassForSignature()).append("(referenceFieldModel)");
+			}
+			out.append(";\n");
+		}
+
+		private void getMultipleReference(final FieldMetadata field, final GeneratorHelper.ReferenceMetadata referenceMetadata) {
+			final String variable = GeneratorHelper.getSanitisedFieldName(field.getName());
+			multipleReferenceAnnotations(referenceMetadata);
+			out.append("    public ").append(referenceMetadata.getReferenceClassForSignature()).append(" get");
+			out.append(GeneratorHelper.camelCaseFieldName(field.getName())).append("() {\n");
+			out.append("        final FieldModel<?> wrappedFieldModel = wrappedEntityModel.getValue(\"").append(field.getName()).append("\");\n");
+			out.append("        if (wrappedFieldModel == null || !(wrappedFieldModel instanceof MultiReferenceFieldModel)) {\n");
+			out.append("            return java.util.Collections.emptyList();\n");
+			out.append("        }\n\n");
+			out.append("        final MultiReferenceFieldModel ").append(variable).append(" = (MultiReferenceFieldModel) wrappedFieldModel;\n");
+			out.append("        if (").append(variable).append(" == null || ").append(variable).append(".getValue() == null) {\n");
+			out.append("            return java.util.Collections.emptyList();\n");
+			out.append("        }\n");
+			out.append("        final java.util.Collection<EntityModel> value = ").append(variable).append(".getValue();\n");
+			if (!referenceMetadata.hasTypedReturn()) {
+				out.append("        return value;\n");
+				return;
+			}
+			final int fieldIndex = fieldMetadata.indexOf(field);
+			final String elementType = GeneratorHelper.getCollectionElementType(referenceMetadata.getReferenceClassForSignature());
+			out.append("        final java.util.Collection<").append(elementType).append("> cachedView = cachedView(").append(fieldIndex).append(", value);\n");
+			out.append("        if (cachedView != null) {\n");
+			out.append("            return cachedView;\n");
+			out.append("        }\n");
+			out.append("        final java.util.List<").append(elementType).append("> view = new java.util.ArrayList<>(value.size());\n");
+			out.append("        for (final EntityModel entityModel : value) {\n");
+			if (referenceMetadata.getReferenceTypes().size() > 1 || referenceMetadata.hasNonTypedReturn()) {
+				out.append("            final TypedEntityModel typedEntityModel = EntityTypeRegistry.wrap(entityModel);\n");
+				if (referenceMetadata.hasNonTypedReturn()) {
+					out.append("            view.add(typedEntityModel != null ? (").append(elementType).append(") typedEntityModel : entityModel);\n");
+				} else {
+					out.append("            view.add(typedEntityModel instanceof ").append(elementType).append(" ? (").append(elementType);
+					out.append(") typedEntityModel : new ").append(referenceMetadata.getTypedType()).append("Model(entityModel));\n");
+				}
+			} else {
+				out.append("            view.add(new ").append(GeneratorHelper.camelCaseFieldName(referenceMetadata.getReferenceTypes().iterator().next()));
+				out.append("EntityModel(entityModel));\n");
+			}
+			out.append("        }\n");
+			out.append("        return cacheView(").append(fieldIndex).append(", value, view);\n");
+		}
+
+		private void setter(final FieldMetadata field) {
+			final String paramName = GeneratorHelper.camelCaseFieldName(field.getName(), false);
+			if (isPhase(field)) {
+				setPhase(field);
+			} else if (field.getFieldType() == FieldMetadata.FieldType.Reference) {
+				setReference(field, paramName);
+			} else {
+				setNonReference(field, paramName);
+			}
+		}
+
+		private void setPhase(final FieldMetadata field) {
+			out.append('\n');
+			fieldMetadataAnnotations(field);
+			out.append("    public ").append(className).append("EntityModel setPhase(final com.hpe.adm.nga.sdk.enums.Phases.").append(className);
+			out.append("Phase phase) {\n");
+			out.append("        if (phase == null) {\n");
+			out.append("            wrappedEntityModel.removeValue(\"phase\");\n");
+			out.append("        } else {\n");
+			out.append("            wrappedEntityModel.setValue(new ReferenceFieldModel(\"phase\", phase.getReferenceModel()));\n");
+			out.append("        }\n");
+			out.append("        return this;\n");
+			out.append("    }\n");
+		}
+
+		private void setReference(final FieldMetadata field, final String paramName) {
+			final GeneratorHelper.ReferenceMetadata referenceMetadata = referenceResolver.getReferenceMetadata(entityMetadata.getName(), field);
+			if (isListNode(field)) {
+				if (field.getFieldTypedata().isMultiple()) {
+					setMultiListNode(field, listName(field));
+				} else {
+					setSingleListNode(field, listName(field));
+				}
+			} else if (field.getFieldTypedata().isMultiple()) {
+				setMultipleReference(field, referenceMetadata, paramName);
+			} else {
+				setSingleReference(field, referenceMetadata, paramName);
+			}
+		}
+
+		private void setSingleListNode(final FieldMetadata field, final String listName) {
+			final String variable = GeneratorHelper.getSanitisedFieldName(field.getName());
+			out.append('\n');
+			fieldMetadataAnnotations(field);
+			out.append("    public ").append(className).append("EntityModel set").append(GeneratorHelper.camelCaseFieldName(field.getName()));
+			out.append("(final com.hpe.adm.nga.sdk.enums.lists.").append(listName).append(' ').append(variable).append(") {\n");
+			out.append("        if (").append(variable).append(" == null) {\n");
+			out.append("            wrappedEntityModel.removeValue(\"").append(field.getName()).append("\");\n");
+			out.append("        } else {\n");
+			out.append("            wrappedEntityModel.setValue(new ReferenceFieldModel(\"").append(field.getName()).append("\", ").append(variable);
+			out.append(".getReferenceModel()));\n");
+			out.append("        }\n");
+			out.append("        return this;\n");
+			out.append("    }\n");
+		}
+
+		private void setMultiListNode(final FieldMetadata field, final String listName) {
+			final String variable = GeneratorHelper.getSanitisedFieldName(field.getName());
+			final String listType = "com.hpe.adm.nga.sdk.enums.lists." + listName;
+			out.append('\n');
+			fieldMetadataAnnotations(field);
+			out.append("    public ").append(className).append("EntityModel set").append(GeneratorHelper.camelCaseFieldName(field.getName()));
+			out.append("(final java.util.Collection<").append(listType).append("> ").append(variable).append(") {\n");
+			out.append("        clearView(").append(fieldMetadata.indexOf(field)).append(");\n");
+			out.append("        if (").append(variable).append(" == null) {\n");
+			out.append("            wrappedEntityModel.removeValue(\"").append(field.getName()).append("\");\n");
+			out.append("            return this;\n");
+			out.append("        }\n\n");
+			out.append("        final java.util.List<EntityModel> entityModels = new java.util.ArrayList<>(").append(variable).append(".size());\n");
+			out.append("        for (final ").append(listType).append(" listNode : ").append(variable).append(") {\n");
+			out.append("            entityModels.add(listNode.getReferenceModel());\n");
+			out.append("        }\n");
+			out.append("        wrappedEntityModel.setValue(new MultiReferenceFieldModel(\"").append(field.getName()).append("\", entityModels));\n");
+			out.append("        return this;\n");
+			out.append("    }\n");
+		}
+
+		private void setSingleReference(final FieldMetadata field, final GeneratorHelper.ReferenceMetadata referenceMetadata, final String paramName) {
+			if (referenceMetadata.hasTypedReturn()) {
+				for (final String type : referenceMetadata.getReferenceTypes()) {
+					setSingleReference(field, GeneratorHelper.camelCaseFieldName(type) + "EntityModel", paramName, paramName + ".getWrappedEntityModel()");
+				}
+			}
+			if (referenceMetadata.hasNonTypedReturn()) {
+				setSingleReference(field, "EntityModel", paramName, paramName);
+			}
+		}
+
+		private void setSingleReference(final FieldMetadata field, final String parameterType, final String paramName, final String value) {
+			out.append('\n');
+			fieldMetadataAnnotations(field);
+			out.append("    public ").append(className).append("EntityModel set").append(GeneratorHelper.camelCaseFieldName(field.getName()));
+			out.append("(final ").append(parameterType).append(' ').append(paramName).append(") {\n");
+			out.append("        if (").append(paramName).append(" == null) {\n");
+			out.append("            wrappedEntityModel.removeValue(\"").append(field.getName()).append("\");\n");
+			out.append("        } else {\n");
+			out.append("            wrappedEntityModel.setValue(new ReferenceFieldModel(\"").append(field.getName()).append("\", ");
+			out.append(value).append("));\n");
+			out.append("        }\n");
+			out.append("        return this;\n");
+			out.append("    }\n");
+		}
+
+		private void setMultipleReference(final FieldMetadata field, final GeneratorHelper.ReferenceMetadata referenceMetadata, final String paramName) {
+			out.append('\n');
+			fieldMetadataAnnotations(field);
+			multipleReferenceAnnotations(referenceMetadata);
+			out.append("    public ").append(className).append("EntityModel set").append(GeneratorHelper.camelCaseFieldName(field.getName()));
+			out.append("(final ").append(referenceMetadata.getReferenceClassForSignature()).append(' ').append(paramName).append(") {\n");
+			if (referenceMetadata.hasTypedReturn()) {
+				out.append("        clearView(").append(fieldMetadata.indexOf(field)).append(");\n");
+			}
+			out.append("        if (").append(paramName).append(" == null) {\n");
+			out.append("            wrappedEntityModel.removeValue(\"").append(field.getName()).append("\");\n");
+			out.append("            return this;\n");
+			out.append("        }\n");
+			if (referenceMetadata.hasTypedReturn()) {
+				out.append("        final java.util.Collection<EntityModel> entityModels = ").append(paramName).append(".stream().map(entityModel -> {\n");
+				out.append("            if (entityModel instanceof ").append(referenceMetadata.getTypedType()).append(") {\n");
+				out.append("                return ((TypedEntityModel) entityModel).getWrappedEntityModel();\n");
+				out.append("            }");
+				if (referenceMetadata.hasNonTypedReturn()) {
+					out.append(" else if (entityModel instanceof EntityModel) {\n");
+					out.append("                return (EntityModel) entityModel;\n");
+					out.append("            }");
+				}
+				out.append(" else {\n");
+				out.append("                throw new IllegalArgumentException(\"Members of ").append(paramName).append(" must be of types {");
+				out.append(referenceMetadata.getTypedType()).append(", ").append(referenceMetadata.hasNonTypedReturn() ? "EntityModel" : "").append("\");\n");
+				out.append("            }\n");
+				out.append("        }).collect(java.util.stream.Collectors.toList());\n");
+				out.append("        wrappedEntityModel.setValue(new MultiReferenceFieldModel(\"").append(field.getName()).append("\", entityModels));\n");
+			} else {
+				out.append("        wrappedEntityModel.setValue(new MultiReferenceFieldModel(\"").append(field.getName()).append("\", ");
+				out.append(paramName).append("));\n");
+			}
+			out.append("        return this;\n");
+			out.append("    }\n");
+		}
+
+		private void setNonReference(final FieldMetadata field, final String paramName) {
+			out.append('\n');
+			fieldMetadataAnnotations(field);
+			out.append("    public ").append(className).append("EntityModel set").append(GeneratorHelper.camelCaseFieldName(field.getName()));
+			out.append("(final ").append(GeneratorHelper.getFieldTypeAsJava(field.getFieldType())).append(' ').append(paramName).append(") {\n");
+			out.append("        if (").append(paramName).append(" == null) {\n");
+			out.append("            wrappedEntityModel.removeValue(\"").append(field.getName()).append("\");\n");
+			out.append("        } else {\n");
+			out.append("            wrappedEntityModel.setValue(new ").append(GeneratorHelper.getFieldModel(field)).append("(\"").append(field.getName());
+			out.append("\", ").append(paramName).append("));\n");
+			out.append("        }\n");
+			out.append("        return this;\n");
+			out.append("    }\n");
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package eu.emundo.generator.generate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A local cache for {@link MetadataSnapshot}s, keyed by server, shared space
+ * and workspace.
+ * </p>
+ * <p>
+ * Every entry consists of the snapshot itself and a file holding the SHA-256
+ * hash of its content. An entry is only used while it is younger than the
+ * configured time to live and its content matches the stored hash.
+ * </p>
+ */
+public final class MetadataCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetadataCache.class);
+
+	private final File cacheDirectory;
+	private final long timeToLiveMillis;
+
+	/**
+	 * Creates a new cache
+	 *
+	 * @param cacheDirectory
+	 *            The directory the entries are stored in
+	 * @param timeToLiveMillis
+	 *            How long an entry is valid after it has been written
+	 */
+	public MetadataCache(final File cacheDirectory, final long timeToLiveMillis) {
+		this.cacheDirectory = cacheDirectory;
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	/**
+	 * Returns the cached snapshot
+	 *
+	 * @param server
+	 *            The server including the protocol and port
+	 * @param sharedSpace
+	 *            The SS id
+	 * @param workSpace
+	 *            The WS id
+	 * @return The snapshot or null if there is no valid entry
+	 */
+	public MetadataSnapshot get(final String server, final long sharedSpace, final long workSpace) {
+		final String key = key(server, sharedSpace, workSpace);
+		final File snapshotFile = new File(cacheDirectory, key + ".json");
+		final File hashFile = new File(cacheDirectory, key + ".sha256");
+		if (!snapshotFile.isFile() || !hashFile.isFile()) {
+			LOGGER.debug("Metadata cache miss for {} {}/{}", server, sharedSpace, workSpace);
+			return null;
+		}
+		final long age = System.currentTimeMillis() - snapshotFile.lastModified();
+		if (age > timeToLiveMillis) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Metadata cache entry for {} {}/{} expired {} s ago", server, sharedSpace, workSpace, (age - timeToLiveMillis) / 1000);
+			}
+			return null;
+		}
+		try {
+			final byte[] content = Files.readAllBytes(snapshotFile.toPath());
+			final String expectedHash = new String(Files.readAllBytes(hashFile.toPath()), StandardCharsets.UTF_8).trim();
+			if (!expectedHash.equals(MetadataSnapshot.sha256(content))) {
+				LOGGER.warn("Metadata cache entry for {} {}/{} is corrupt", server, sharedSpace, workSpace);
+				return null;
+			}
+			final MetadataSnapshot snapshot = MetadataSnapshot.read(snapshotFile);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Metadata cache hit for {} {}/{} (age {} s)", server, sharedSpace, workSpace, age / 1000);
+			}
+			return snapshot;
+		} catch (IOException e) {
+			LOGGER.warn("Metadata cache entry for {} {}/{} cannot be read: {}", server, sharedSpace, workSpace, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the snapshot in the cache, replacing an existing entry
+	 *
+	 * @param server
+	 *            The server including the protocol and port
+	 * @param sharedSpace
+	 *            The SS id
+	 * @param workSpace
+	 *            The WS id
+	 * @param snapshot
+	 *            The snapshot
+	 * @throws IOException
+	 *             A problem writing the entry
+	 */
+	public void put(final String server, final long sharedSpace, final long workSpace, final MetadataSnapshot snapshot) throws IOException {
+		final String key = key(server, sharedSpace, workSpace);
+		cacheDirectory.mkdirs();
+		final File temporaryFile = File.createTempFile(key, ".tmp", cacheDirectory);
+		try {
+			snapshot.write(temporaryFile);
+			final String hash = MetadataSnapshot.sha256(Files.readAllBytes(temporaryFile.toPath()));
+			Files.write(new File(cacheDirectory, key + ".sha256").toPath(), hash.getBytes(StandardCharsets.UTF_8));
+			Files.move(temporaryFile.toPath(), new File(cacheDirectory, key + ".json").toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporaryFile.toPath());
+		}
+	}
+
+	private static String key(final String server, final long sharedSpace, final long workSpace) {
+		return MetadataSnapshot.sha256((server + "|" + sharedSpace + "|" + workSpace).getBytes(StandardCharsets.UTF_8));
+	}
+}
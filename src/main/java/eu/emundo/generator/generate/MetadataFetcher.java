@@ -0,0 +1,457 @@
+package eu.emundo.generator.generate;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hpe.adm.nga.sdk.Octane;
+import com.hpe.adm.nga.sdk.entities.OctaneCollection;
+import com.hpe.adm.nga.sdk.metadata.EntityMetadata;
+import com.hpe.adm.nga.sdk.metadata.FieldMetadata;
+import com.hpe.adm.nga.sdk.metadata.Metadata;
+import com.hpe.adm.nga.sdk.model.EntityModel;
+import com.hpe.adm.nga.sdk.model.ReferenceFieldModel;
+import com.hpe.adm.nga.sdk.query.Query;
+import com.hpe.adm.nga.sdk.query.QueryMethod;
+
+/**
+ * <p>
+ * Fetches all metadata needed for the generation from an ALM Octane server
+ * and collects it in a {@link MetadataSnapshot}.
+ * </p>
+ * <p>
+ * If a {@link MetadataCache} is configured, cached metadata is used instead of
+ * contacting the server as long as it is valid.
+ * </p>
+ */
+public class MetadataFetcher {
+
+	/**
+	 * Page size used when fetching all list nodes at once
+	 */
+	private static final int LIST_NODE_PAGE_SIZE = 2000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetadataFetcher.class);
+
+	private final List<String> ignoredListIds;
+	private boolean bulkListFetch;
+	private int fetchParallelism = 1;
+	private MetadataCache metadataCache;
+	private boolean refreshMetadata;
+	private GenerationMetrics metrics = new GenerationMetrics();
+	private boolean quiet;
+
+	/**
+	 * Creates a new fetcher
+	 *
+	 * @param ignoredListIds
+	 *            Comma separated list with list_node ids, which should not be
+	 *            fetched
+	 */
+	public MetadataFetcher(final String ignoredListIds) {
+		if (StringUtils.isNotBlank(ignoredListIds)) {
+			this.ignoredListIds = Arrays.asList(StringUtils.split(ignoredListIds, ","));
+		} else {
+			this.ignoredListIds = null;
+		}
+	}
+
+	/**
+	 * Fetch all list nodes with a few paged requests instead of one request
+	 * per list root
+	 *
+	 * @param bulkListFetch
+	 *            Whether the list nodes should be fetched in bulk
+	 * @return this
+	 */
+	public MetadataFetcher setBulkListFetch(final boolean bulkListFetch) {
+		this.bulkListFetch = bulkListFetch;
+		return this;
+	}
+
+	/**
+	 * Number of concurrent requests used to fetch the field metadata of the
+	 * entities
+	 *
+	 * @param fetchParallelism
+	 *            The maximum number of concurrent requests, values below 2
+	 *            fetch sequentially
+	 * @return this
+	 */
+	public MetadataFetcher setFetchParallelism(final int fetchParallelism) {
+		this.fetchParallelism = fetchParallelism;
+		return this;
+	}
+
+	/**
+	 * Use a local cache for the metadata fetched from the server
+	 *
+	 * @param metadataCache
+	 *            The cache or null to always fetch the metadata
+	 * @param refreshMetadata
+	 *            Ignore cached metadata and fetch it again, the cache is
+	 *            updated afterwards
+	 * @return this
+	 */
+	public MetadataFetcher setMetadataCache(final MetadataCache metadataCache, final boolean refreshMetadata) {
+		this.metadataCache = metadataCache;
+		this.refreshMetadata = refreshMetadata;
+		return this;
+	}
+
+	/**
+	 * Records the timings and the number of requests in the given metrics
+	 *
+	 * @param metrics
+	 *            The metrics
+	 * @return this
+	 */
+	public MetadataFetcher setMetrics(final GenerationMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * Do not log the progress of the fetch
+	 *
+	 * @param quiet
+	 *            Whether the progress should not be logged
+	 * @return this
+	 */
+	public MetadataFetcher setQuiet(final boolean quiet) {
+		this.quiet = quiet;
+		return this;
+	}
+
+	/**
+	 * Fetches the metadata from the cache or the server
+	 *
+	 * @param clientId
+	 *            The client id
+	 * @param clientSecret
+	 *            The client secret
+	 * @param server
+	 *            The server including the protocol and port
+	 * @param sharedSpace
+	 *            The SS id
+	 * @param workSpace
+	 *            The WS id
+	 * @param doNotValidateCertificate
+	 *            Disables validating server SSL certificates
+	 * @param techPreview
+	 *            API Mode
+	 * @return The metadata
+	 * @throws IOException
+	 *             A problem writing the cache
+	 * @throws GeneralSecurityException
+	 *             A problem connecting to the server
+	 */
+	public MetadataSnapshot fetch(final String clientId, final String clientSecret, final String server, final long sharedSpace, final long workSpace,
+			final boolean doNotValidateCertificate, final boolean techPreview) throws IOException, GeneralSecurityException {
+		return fetch(clientId, clientSecret, server, sharedSpace, workSpace, doNotValidateCertificate, techPreview, fetchParallelism);
+	}
+
+	private MetadataSnapshot fetch(final String clientId, final String clientSecret, final String server, final long sharedSpace, final long workSpace,
+			final boolean doNotValidateCertificate, final boolean techPreview, final int entityParallelism) throws IOException, GeneralSecurityException {
+		MetadataSnapshot snapshot = null;
+		if (metadataCache != null && !refreshMetadata) {
+			snapshot = metadataCache.get(server, sharedSpace, workSpace);
+		}
+		if (snapshot == null) {
+			snapshot = fetchFromServer(clientId, clientSecret, server, sharedSpace, workSpace, doNotValidateCertificate, techPreview, entityParallelism);
+			if (metadataCache != null) {
+				metadataCache.put(server, sharedSpace, workSpace, snapshot);
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Fetches the metadata of several workspaces of one shared space and
+	 * merges it into one snapshot, see {@link MetadataSnapshot#merge(Map)}.
+	 * The workspaces are fetched concurrently if a fetch parallelism greater
+	 * than one is configured. The parallelism is split between the workspaces
+	 * and the field metadata requests within each workspace, so that there are
+	 * never more concurrent requests than configured.
+	 * <p>
+	 * Every workspace signs in on its own: a client of the SDK is bound to one
+	 * workspace and signs in when it is built, so a session cannot be shared
+	 * between the workspaces of a shared space.
+	 * </p>
+	 *
+	 * @param clientId
+	 *            The client id
+	 * @param clientSecret
+	 *            The client secret
+	 * @param server
+	 *            The server including the protocol and port
+	 * @param sharedSpace
+	 *            The SS id
+	 * @param workSpaces
+	 *            The WS ids
+	 * @param doNotValidateCertificate
+	 *            Disables validating server SSL certificates
+	 * @param techPreview
+	 *            API Mode
+	 * @return The merged metadata
+	 * @throws IOException
+	 *             A problem writing the cache
+	 * @throws GeneralSecurityException
+	 *             A problem connecting to the server
+	 * @throws IllegalStateException
+	 *             A field has different types in the workspaces
+	 */
+	public MetadataSnapshot fetch(final String clientId, final String clientSecret, final String server, final long sharedSpace,
+			final List<Long> workSpaces, final boolean doNotValidateCertificate, final boolean techPreview) throws IOException, GeneralSecurityException {
+		final long startTime = System.currentTimeMillis();
+		final Map<Long, MetadataSnapshot> snapshots = new TreeMap<>();
+		if (fetchParallelism <= 1 || workSpaces.size() <= 1) {
+			for (final Long workSpace : workSpaces) {
+				snapshots.put(workSpace, fetch(clientId, clientSecret, server, sharedSpace, workSpace, doNotValidateCertificate, techPreview));
+			}
+		} else {
+			final int workSpaceParallelism = Math.min(fetchParallelism, workSpaces.size());
+			final int entityParallelism = fetchParallelism / workSpaceParallelism;
+			final ExecutorService executorService = Executors.newFixedThreadPool(workSpaceParallelism);
+			try {
+				final Map<Long, Future<MetadataSnapshot>> futures = new LinkedHashMap<>();
+				for (final Long workSpace : workSpaces) {
+					futures.put(workSpace, executorService.submit(
+							() -> fetch(clientId, clientSecret, server, sharedSpace, workSpace, doNotValidateCertificate, techPreview, entityParallelism)));
+				}
+				for (final Map.Entry<Long, Future<MetadataSnapshot>> future : futures.entrySet()) {
+					snapshots.put(future.getKey(), future.getValue().get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while fetching the metadata of the workspaces", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				if (e.getCause() instanceof GeneralSecurityException) {
+					throw (GeneralSecurityException) e.getCause();
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException("Problem fetching the metadata of the workspaces", e.getCause());
+			} finally {
+				executorService.shutdownNow();
+			}
+		}
+		if (!quiet && LOGGER.isInfoEnabled()) {
+			LOGGER.info("Fetched metadata of {} workspaces with parallelism {} in {} ms", workSpaces.size(), Math.max(fetchParallelism, 1),
+					System.currentTimeMillis() - startTime);
+		}
+		return MetadataSnapshot.merge(snapshots);
+	}
+
+	private MetadataSnapshot fetchFromServer(final String clientId, final String clientSecret, final String server, final long sharedSpace,
+			final long workSpace, final boolean doNotValidateCertificate, final boolean techPreview, final int entityParallelism)
+			throws GeneralSecurityException {
+		final long authenticationStart = metrics.start();
+		try (final OctaneSession session = new OctaneSession(clientId, clientSecret, server, sharedSpace, workSpace, doNotValidateCertificate, techPreview)) {
+			metrics.stop(GenerationMetrics.AUTHENTICATION, authenticationStart);
+			final long fetchStart = metrics.start();
+			final Octane octane = session.getOctane();
+			final Metadata metadata = octane.metadata();
+			// work_item_root is only returned in technical preview
+			final EntityMetadata work_items_root = session.withTechnicalPreview(() -> metadata.entities("work_item_root").execute().iterator().next());
+			final Collection<FieldMetadata> work_items_rootFields = session.withTechnicalPreview(() -> metadata.fields("work_item_root").execute());
+
+			final Collection<EntityMetadata> entityMetadata = metadata.entities().execute();
+			// technical preview also returns it in the list of all entities
+			if (entityMetadata.stream().noneMatch(entity -> entity.getName().equals("work_item_root"))) {
+				entityMetadata.add(work_items_root);
+			}
+			// sign in, work_item_root and its fields, entities
+			metrics.add(GenerationMetrics.REST_CALLS, 4);
+
+			final List<String> entityNames = entityMetadata.stream()
+					.map(EntityMetadata::getName)
+					.filter(name -> !GenerateModels.entityShouldNotBeGenerated(name) && !name.equals("work_item_root"))
+					.collect(Collectors.toList());
+			final Map<String, Collection<FieldMetadata>> fieldMetadataByEntity = fetchFieldMetadata(metadata, entityNames, entityParallelism);
+			fieldMetadataByEntity.put("work_item_root", work_items_rootFields);
+
+			final long startTime = System.currentTimeMillis();
+			final AtomicInteger requestCounter = new AtomicInteger();
+			final Collection<EntityModel> rootNodes = fetchListRootNodes(octane, requestCounter);
+			final List<EntityModel> listNodes = fetchListNodes(octane, rootNodes, requestCounter);
+			if (!quiet && LOGGER.isInfoEnabled()) {
+				LOGGER.info("Fetched {} list entries of {} lists with {} requests in {} ms", listNodes.size(), rootNodes.size(), requestCounter.get(),
+						System.currentTimeMillis() - startTime);
+			}
+
+			final Collection<EntityModel> phases = fetchPhases(octane);
+			// lists, phases and sign out
+			metrics.add(GenerationMetrics.REST_CALLS, requestCounter.get() + 2);
+			metrics.stop(GenerationMetrics.METADATA_FETCH, fetchStart);
+			return new MetadataSnapshot(entityMetadata, fieldMetadataByEntity, rootNodes, listNodes, phases);
+		}
+	}
+
+	/**
+	 * Fetches the field metadata of the given entities. If a parallelism
+	 * greater than one is given the requests are sent concurrently, otherwise
+	 * one after another. The result does not depend on the order in
+	 * which the requests complete.
+	 *
+	 * @param metadata
+	 *            The metadata of the Octane client
+	 * @param entityNames
+	 *            The entities whose fields should be fetched
+	 * @param parallelism
+	 *            The maximum number of concurrent requests
+	 * @return The field metadata mapped by entity name
+	 */
+	private Map<String, Collection<FieldMetadata>> fetchFieldMetadata(final Metadata metadata, final List<String> entityNames, final int parallelism) {
+		final long startTime = System.currentTimeMillis();
+		final Map<String, Collection<FieldMetadata>> fieldMetadataByEntity = new HashMap<>();
+		if (parallelism <= 1 || entityNames.size() <= 1) {
+			for (final String entityName : entityNames) {
+				fieldMetadataByEntity.put(entityName, metadata.fields(entityName).execute());
+			}
+		} else {
+			final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, entityNames.size()));
+			try {
+				final Map<String, Future<Collection<FieldMetadata>>> futures = new LinkedHashMap<>();
+				for (final String entityName : entityNames) {
+					futures.put(entityName, executorService.submit(() -> metadata.fields(entityName).execute()));
+				}
+				for (final Map.Entry<String, Future<Collection<FieldMetadata>>> future : futures.entrySet()) {
+					fieldMetadataByEntity.put(future.getKey(), future.getValue().get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while fetching field metadata", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException("Problem fetching field metadata", e.getCause());
+			} finally {
+				executorService.shutdownNow();
+			}
+		}
+		metrics.add(GenerationMetrics.REST_CALLS, entityNames.size());
+		if (!quiet && LOGGER.isInfoEnabled()) {
+			LOGGER.info("Fetched field metadata of {} entities with parallelism {} in {} ms", entityNames.size(), Math.max(parallelism, 1),
+					System.currentTimeMillis() - startTime);
+		}
+		return fieldMetadataByEntity;
+	}
+
+	private Collection<EntityModel> fetchListRootNodes(final Octane octane, final AtomicInteger requestCounter) {
+		// since octane v12.60.35.103 does not return root list_nodes within
+		// list_nodes call
+		final Collection<EntityModel> rootNodes = octane.entityList("list_nodes")
+				.get()
+				.addFields("name", "id", "logical_name", "activity_level")
+				.query(Query.statement("list_root", QueryMethod.EqualTo, null).build())
+				.execute();
+		requestCounter.incrementAndGet();
+		return rootNodes;
+	}
+
+	private List<EntityModel> fetchListNodes(final Octane octane, final Collection<EntityModel> rootNodes, final AtomicInteger requestCounter) {
+		final List<EntityModel> listNodes = new ArrayList<>();
+		if (bulkListFetch) {
+			final Set<String> rootIds = rootNodes.stream().map(EntityModel::getId).collect(Collectors.toSet());
+			fetchAllListNodes(octane, requestCounter).forEach((rootId, models) -> {
+				// ignored lists are filtered on the client side
+				if (rootIds.contains(rootId) && !listShouldNotBeGenerated(rootId)) {
+					listNodes.addAll(models);
+				}
+			});
+			return listNodes;
+		}
+		for (EntityModel rootNode : rootNodes) {
+			if (listShouldNotBeGenerated(rootNode.getId())) {
+				continue;
+			}
+			final OctaneCollection<EntityModel> models = octane.entityList("list_nodes")
+					.get()
+					.addFields("name", "list_root", "id", "logical_name", "activity_level")
+					.query(Query.statement("list_root", QueryMethod.EqualTo, Query.statement("id", QueryMethod.EqualTo, rootNode.getId()))
+							.and(Query.statement("activity_level", QueryMethod.LessThan, 2))
+							.build())
+					.execute();
+			requestCounter.incrementAndGet();
+			listNodes.addAll(models);
+		}
+		return listNodes;
+	}
+
+	/**
+	 * Fetches all non deprecated list nodes of the shared space with as few
+	 * paged requests as possible and groups them by the id of their list root.
+	 * Root nodes themselves are not part of the result.
+	 *
+	 * @param octane
+	 *            The Octane client
+	 * @param requestCounter
+	 *            Counter which is incremented for every request sent
+	 * @return The list nodes mapped by the id of their list root
+	 */
+	private Map<String, List<EntityModel>> fetchAllListNodes(final Octane octane, final AtomicInteger requestCounter) {
+		final Map<String, List<EntityModel>> listNodesByRootId = new HashMap<>();
+		int offset = 0;
+		int totalCount;
+		do {
+			final OctaneCollection<EntityModel> page = octane.entityList("list_nodes")
+					.get()
+					.addFields("name", "list_root", "id", "logical_name", "activity_level")
+					.query(Query.statement("activity_level", QueryMethod.LessThan, 2).build())
+					.addOrderBy("id", true)
+					.limit(LIST_NODE_PAGE_SIZE)
+					.offset(offset)
+					.execute();
+			requestCounter.incrementAndGet();
+			if (page.isEmpty()) {
+				break;
+			}
+			for (final EntityModel listNode : page) {
+				final ReferenceFieldModel list_root = (ReferenceFieldModel) listNode.getValue("list_root");
+				if (list_root == null || list_root.getValue() == null) {
+					continue;
+				}
+				listNodesByRootId.computeIfAbsent(list_root.getValue().getId(), k -> new ArrayList<>()).add(listNode);
+			}
+			offset += page.size();
+			totalCount = page.getTotalCount();
+		} while (offset < totalCount);
+		return listNodesByRootId;
+	}
+
+	private Collection<EntityModel> fetchPhases(final Octane octane) {
+		return octane.entityList("phases")
+				.get()
+				.addFields("id", "name", "entity")
+				.query(Query.statement("activity_level", QueryMethod.EqualTo, 0).build())
+				.execute();
+	}
+
+	private boolean listShouldNotBeGenerated(final String id) {
+		return this.ignoredListIds != null && this.ignoredListIds.contains(id);
+	}
+}
@@ -0,0 +1,476 @@
+package eu.emundo.generator.generate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.hpe.adm.nga.sdk.metadata.EntityMetadata;
+import com.hpe.adm.nga.sdk.metadata.FieldMetadata;
+import com.hpe.adm.nga.sdk.metadata.features.Feature;
+import com.hpe.adm.nga.sdk.model.BooleanFieldModel;
+import com.hpe.adm.nga.sdk.model.DateFieldModel;
+import com.hpe.adm.nga.sdk.model.EntityModel;
+import com.hpe.adm.nga.sdk.model.FieldModel;
+import com.hpe.adm.nga.sdk.model.FloatFieldModel;
+import com.hpe.adm.nga.sdk.model.LongFieldModel;
+import com.hpe.adm.nga.sdk.model.MultiReferenceFieldModel;
+import com.hpe.adm.nga.sdk.model.ReferenceFieldModel;
+import com.hpe.adm.nga.sdk.model.StringFieldModel;
+
+/**
+ * <p>
+ * Holds all metadata of an ALM Octane workspace which is needed to generate
+ * the models: the entity and field metadata, the list nodes and the phases.
+ * </p>
+ * <p>
+ * A snapshot can be written to and read from a compact JSON file. The file
+ * starts with a format version so that outdated snapshots are rejected instead
+ * of generating wrong models.
+ * </p>
+ * <p>
+ * The snapshots of several workspaces can be merged into one, so that the
+ * models are generated once for all of them.
+ * </p>
+ */
+public final class MetadataSnapshot {
+
+	/**
+	 * Version of the snapshot file format. Has to be increased whenever the
+	 * format changes in an incompatible way
+	 */
+	public static final int VERSION = 2;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetadataSnapshot.class);
+
+	private static final Gson GSON = new GsonBuilder().registerTypeHierarchyAdapter(Feature.class, new FeatureAdapter())
+			.registerTypeAdapter(EntityModel.class, new EntityModelAdapter())
+			.serializeNulls()
+			.create();
+
+	private final Collection<EntityMetadata> entityMetadata;
+	private final Map<String, Collection<FieldMetadata>> fieldMetadata;
+	private final Collection<EntityModel> listRootNodes;
+	private final Collection<EntityModel> listNodes;
+	private final Collection<EntityModel> phases;
+	private final Map<String, Map<String, List<Long>>> workspaceSpecificFields;
+
+	/**
+	 * Creates a new snapshot
+	 *
+	 * @param entityMetadata
+	 *            The metadata of all entities including work_item_root
+	 * @param fieldMetadata
+	 *            The field metadata mapped by entity name
+	 * @param listRootNodes
+	 *            The root list nodes
+	 * @param listNodes
+	 *            The list nodes of all lists
+	 * @param phases
+	 *            The active phases
+	 */
+	public MetadataSnapshot(final Collection<EntityMetadata> entityMetadata, final Map<String, Collection<FieldMetadata>> fieldMetadata,
+			final Collection<EntityModel> listRootNodes, final Collection<EntityModel> listNodes, final Collection<EntityModel> phases) {
+		this(entityMetadata, fieldMetadata, listRootNodes, listNodes, phases, Collections.emptyMap());
+	}
+
+	private MetadataSnapshot(final Collection<EntityMetadata> entityMetadata, final Map<String, Collection<FieldMetadata>> fieldMetadata,
+			final Collection<EntityModel> listRootNodes, final Collection<EntityModel> listNodes, final Collection<EntityModel> phases,
+			final Map<String, Map<String, List<Long>>> workspaceSpecificFields) {
+		this.entityMetadata = entityMetadata;
+		this.fieldMetadata = fieldMetadata;
+		this.listRootNodes = listRootNodes;
+		this.listNodes = listNodes;
+		this.phases = phases;
+		this.workspaceSpecificFields = workspaceSpecificFields;
+	}
+
+	/**
+	 * Merges the snapshots of several workspaces of one shared space.
+	 * <p>
+	 * Entities, fields, list nodes and phases are identified by their name or
+	 * id and only taken once. If a definition differs between the workspaces,
+	 * the one of the workspace with the lowest id is used, except for the type
+	 * of a field: a getter of one type would fail on the values of the other
+	 * workspaces, so the merge fails instead. Fields which do not exist in
+	 * every workspace having their entity, usually UDFs, are recorded in
+	 * {@link #getWorkspaceSpecificFields()}.
+	 * </p>
+	 *
+	 * @param snapshots
+	 *            The snapshots mapped by workspace id
+	 * @return The merged snapshot
+	 * @throws IllegalStateException
+	 *             A field has different types in the workspaces
+	 */
+	public static MetadataSnapshot merge(final Map<Long, MetadataSnapshot> snapshots) {
+		if (snapshots.size() == 1) {
+			return snapshots.values().iterator().next();
+		}
+		final Map<Long, MetadataSnapshot> sortedSnapshots = new TreeMap<>(snapshots);
+		final Map<String, EntityMetadata> entityMetadata = new LinkedHashMap<>();
+		final Map<String, List<Long>> entityWorkspaces = new HashMap<>();
+		final Map<String, Map<String, FieldMetadata>> fieldMetadata = new LinkedHashMap<>();
+		final Map<String, Map<String, List<Long>>> fieldWorkspaces = new HashMap<>();
+		final Map<String, EntityModel> listRootNodes = new LinkedHashMap<>();
+		final Map<String, EntityModel> listNodes = new LinkedHashMap<>();
+		final Map<String, EntityModel> phases = new LinkedHashMap<>();
+		for (final Map.Entry<Long, MetadataSnapshot> snapshotEntry : sortedSnapshots.entrySet()) {
+			final Long workSpace = snapshotEntry.getKey();
+			final MetadataSnapshot snapshot = snapshotEntry.getValue();
+			for (final EntityMetadata entityMetadatum : snapshot.entityMetadata) {
+				entityMetadata.putIfAbsent(entityMetadatum.getName(), entityMetadatum);
+				entityWorkspaces.computeIfAbsent(entityMetadatum.getName(), k -> new ArrayList<>()).add(workSpace);
+			}
+			snapshot.fieldMetadata.forEach((entityName, fields) -> {
+				final Map<String, FieldMetadata> mergedFields = fieldMetadata.computeIfAbsent(entityName, k -> new LinkedHashMap<>());
+				for (final FieldMetadata field : fields) {
+					final FieldMetadata mergedField = mergedFields.putIfAbsent(field.getName(), field);
+					if (mergedField != null && mergedField.getFieldType() != field.getFieldType()) {
+						throw new IllegalStateException(String.format(
+								"Field %s of %s is a %s in workspace %d but a %s in workspace %d, generate the models of these workspaces separately",
+								field.getName(), entityName, field.getFieldType(), workSpace, mergedField.getFieldType(),
+								fieldWorkspaces.get(entityName).get(field.getName()).get(0)));
+					}
+					fieldWorkspaces.computeIfAbsent(entityName, k -> new HashMap<>()).computeIfAbsent(field.getName(), k -> new ArrayList<>()).add(workSpace);
+				}
+			});
+			snapshot.listRootNodes.forEach(listRootNode -> listRootNodes.putIfAbsent(listRootNode.getId(), listRootNode));
+			snapshot.listNodes.forEach(listNode -> listNodes.putIfAbsent(listNode.getId(), listNode));
+			snapshot.phases.forEach(phase -> phases.putIfAbsent(phase.getId(), phase));
+		}
+
+		final Map<String, Map<String, List<Long>>> workspaceSpecificFields = new TreeMap<>();
+		fieldWorkspaces.forEach((entityName, fields) -> {
+			final List<Long> workspacesOfEntity = entityWorkspaces.getOrDefault(entityName, Collections.emptyList());
+			fields.forEach((fieldName, workspacesOfField) -> {
+				if (workspacesOfField.size() < workspacesOfEntity.size()) {
+					workspaceSpecificFields.computeIfAbsent(entityName, k -> new TreeMap<>()).put(fieldName, workspacesOfField);
+				}
+			});
+		});
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Merged the metadata of {} workspaces: {} entities, {} fields only available in some workspaces", sortedSnapshots.size(),
+					entityMetadata.size(), workspaceSpecificFields.values().stream().mapToInt(Map::size).sum());
+		}
+
+		final Map<String, Collection<FieldMetadata>> mergedFieldMetadata = new HashMap<>();
+		fieldMetadata.forEach((entityName, fields) -> mergedFieldMetadata.put(entityName, new ArrayList<>(fields.values())));
+		return new MetadataSnapshot(new ArrayList<>(entityMetadata.values()), mergedFieldMetadata, new ArrayList<>(listRootNodes.values()),
+				new ArrayList<>(listNodes.values()), new ArrayList<>(phases.values()), workspaceSpecificFields);
+	}
+
+	public Collection<EntityMetadata> getEntityMetadata() {
+		return entityMetadata;
+	}
+
+	public Map<String, Collection<FieldMetadata>> getFieldMetadata() {
+		return fieldMetadata;
+	}
+
+	public Collection<EntityModel> getListRootNodes() {
+		return listRootNodes;
+	}
+
+	public Collection<EntityModel> getListNodes() {
+		return listNodes;
+	}
+
+	public Collection<EntityModel> getPhases() {
+		return phases;
+	}
+
+	/**
+	 * @return The fields which only exist in some of the merged workspaces,
+	 *         mapped by entity and field name to the ids of those workspaces
+	 */
+	public Map<String, Map<String, List<Long>>> getWorkspaceSpecificFields() {
+		return workspaceSpecificFields;
+	}
+
+	/**
+	 * Writes the snapshot to the given file
+	 *
+	 * @param file
+	 *            The target file, parent directories are created if needed
+	 * @throws IOException
+	 *             A problem writing the file
+	 */
+	public void write(final File file) throws IOException {
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		try (final Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			GSON.toJson(toSnapshotFile(), writer);
+		}
+	}
+
+	/**
+	 * Computes the SHA-256 hash of the serialized snapshot. Two snapshots with
+	 * the same metadata have the same hash
+	 *
+	 * @return The hash as hex string
+	 */
+	public String contentHash() {
+		return sha256(GSON.toJson(toSnapshotFile()).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private SnapshotFile toSnapshotFile() {
+		final SnapshotFile snapshotFile = new SnapshotFile();
+		snapshotFile.version = VERSION;
+		snapshotFile.entities = new ArrayList<>(entityMetadata);
+		snapshotFile.fields = new TreeMap<>();
+		fieldMetadata.forEach((entityName, fields) -> snapshotFile.fields.put(entityName, new ArrayList<>(fields)));
+		snapshotFile.listRootNodes = new ArrayList<>(listRootNodes);
+		snapshotFile.listNodes = new ArrayList<>(listNodes);
+		snapshotFile.phases = new ArrayList<>(phases);
+		snapshotFile.workspaceSpecificFields = workspaceSpecificFields.isEmpty() ? null : new TreeMap<>(workspaceSpecificFields);
+		return snapshotFile;
+	}
+
+	/**
+	 * Reads a snapshot from the given file
+	 *
+	 * @param file
+	 *            The snapshot file
+	 * @return The snapshot
+	 * @throws IOException
+	 *             The file cannot be read or has an unsupported version
+	 */
+	public static MetadataSnapshot read(final File file) throws IOException {
+		final SnapshotFile snapshotFile;
+		try (final Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			snapshotFile = GSON.fromJson(reader, SnapshotFile.class);
+		} catch (JsonParseException e) {
+			throw new IOException("Invalid metadata snapshot: " + file, e);
+		}
+		if (snapshotFile == null || snapshotFile.version != VERSION) {
+			throw new IOException("Unsupported metadata snapshot version in " + file + ", expected " + VERSION + ". Please record the snapshot again");
+		}
+
+		final Map<String, Collection<FieldMetadata>> fieldMetadata = new HashMap<>();
+		snapshotFile.fields.forEach((entityName, fields) -> fieldMetadata.put(entityName, new ArrayList<>(fields)));
+		return new MetadataSnapshot(snapshotFile.entities, fieldMetadata, snapshotFile.listRootNodes, snapshotFile.listNodes, snapshotFile.phases,
+				snapshotFile.workspaceSpecificFields == null ? Collections.emptyMap() : snapshotFile.workspaceSpecificFields);
+	}
+
+	static String sha256(final byte[] content) {
+		final MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		final StringBuilder stringBuilder = new StringBuilder();
+		for (final byte b : messageDigest.digest(content)) {
+			stringBuilder.append(String.format("%02x", b));
+		}
+		return stringBuilder.toString();
+	}
+
+	/**
+	 * The structure of the snapshot file. The version is written first
+	 */
+	private static final class SnapshotFile {
+		private int version;
+		private List<EntityMetadata> entities;
+		private Map<String, List<FieldMetadata>> fields;
+		private List<EntityModel> listRootNodes;
+		private List<EntityModel> listNodes;
+		private List<EntityModel> phases;
+		// only written for merged snapshots, older snapshots do not have it
+		private Map<String, Map<String, List<Long>>> workspaceSpecificFields;
+	}
+
+	/**
+	 * Features are stored together with their class, as the entity metadata
+	 * only knows the abstract type
+	 */
+	private static final class FeatureAdapter implements JsonSerializer<Feature>, JsonDeserializer<Feature> {
+		private static final Gson FEATURE_GSON = new Gson();
+
+		@Override
+		public JsonElement serialize(final Feature feature, final Type type, final JsonSerializationContext context) {
+			final JsonObject jsonObject = new JsonObject();
+			jsonObject.addProperty("class", feature.getClass().getName());
+			jsonObject.add("data", FEATURE_GSON.toJsonTree(feature));
+			return jsonObject;
+		}
+
+		@Override
+		public Feature deserialize(final JsonElement json, final Type type, final JsonDeserializationContext context) {
+			final JsonObject jsonObject = json.getAsJsonObject();
+			final String className = jsonObject.get("class").getAsString();
+			try {
+				final Class<? extends Feature> featureClass = Class.forName(className).asSubclass(Feature.class);
+				return FEATURE_GSON.fromJson(jsonObject.get("data"), featureClass);
+			} catch (ClassNotFoundException | ClassCastException e) {
+				throw new JsonParseException("Unknown feature: " + className, e);
+			}
+		}
+	}
+
+	/**
+	 * Entity models are stored as plain JSON objects. Strings, integral and
+	 * decimal numbers and booleans are mapped to the matching field models,
+	 * objects and null to references, arrays to multi references. Dates are
+	 * stored as an object with the single member {@value #DATE}. Empty values
+	 * of fields other than references are stored as an object with the single
+	 * member {@value #NULL} naming the field model, so that the field is kept
+	 * when reading. Unknown field models are rejected
+	 */
+	private static final class EntityModelAdapter implements JsonSerializer<EntityModel>, JsonDeserializer<EntityModel> {
+		private static final String DATE = "@date";
+		private static final String NULL = "@null";
+		private static final String STRING = "string";
+		private static final String LONG = "long";
+		private static final String BOOLEAN = "boolean";
+		private static final String FLOAT = "float";
+		private static final String MULTI_REFERENCE = "multi_reference";
+
+		@Override
+		public JsonElement serialize(final EntityModel entityModel, final Type type, final JsonSerializationContext context) {
+			final Map<String, JsonElement> sortedValues = new TreeMap<>();
+			for (final FieldModel fieldModel : entityModel.getValues()) {
+				final Object value = fieldModel.getValue();
+				if (fieldModel instanceof ReferenceFieldModel) {
+					sortedValues.put(fieldModel.getName(), value == null ? JsonNull.INSTANCE : serialize((EntityModel) value, type, context));
+				} else if (value == null) {
+					final JsonObject nullValue = new JsonObject();
+					nullValue.addProperty(NULL, nullKind(fieldModel));
+					sortedValues.put(fieldModel.getName(), nullValue);
+				} else if (fieldModel instanceof StringFieldModel) {
+					sortedValues.put(fieldModel.getName(), new JsonPrimitive((String) value));
+				} else if (fieldModel instanceof LongFieldModel) {
+					sortedValues.put(fieldModel.getName(), new JsonPrimitive((Long) value));
+				} else if (fieldModel instanceof BooleanFieldModel) {
+					sortedValues.put(fieldModel.getName(), new JsonPrimitive((Boolean) value));
+				} else if (fieldModel instanceof FloatFieldModel) {
+					sortedValues.put(fieldModel.getName(), new JsonPrimitive((Float) value));
+				} else if (fieldModel instanceof DateFieldModel) {
+					final JsonObject date = new JsonObject();
+					date.addProperty(DATE, value.toString());
+					sortedValues.put(fieldModel.getName(), date);
+				} else if (fieldModel instanceof MultiReferenceFieldModel) {
+					final JsonArray references = new JsonArray();
+					for (final Object reference : (Collection<?>) value) {
+						references.add(reference == null ? JsonNull.INSTANCE : serialize((EntityModel) reference, type, context));
+					}
+					sortedValues.put(fieldModel.getName(), references);
+				} else {
+					throw new IllegalArgumentException("Unsupported field model " + fieldModel.getClass().getName() + " of field " + fieldModel.getName());
+				}
+			}
+			final JsonObject jsonObject = new JsonObject();
+			sortedValues.forEach(jsonObject::add);
+			return jsonObject;
+		}
+
+		@Override
+		public EntityModel deserialize(final JsonElement json, final Type type, final JsonDeserializationContext context) {
+			final EntityModel entityModel = new EntityModel();
+			for (final Map.Entry<String, JsonElement> entry : json.getAsJsonObject().entrySet()) {
+				final String name = entry.getKey();
+				final JsonElement value = entry.getValue();
+				if (value.isJsonNull()) {
+					entityModel.setValue(new ReferenceFieldModel(name, null));
+				} else if (value.isJsonArray()) {
+					final List<EntityModel> references = new ArrayList<>();
+					for (final JsonElement reference : value.getAsJsonArray()) {
+						references.add(reference.isJsonNull() ? null : deserialize(reference, type, context));
+					}
+					entityModel.setValue(new MultiReferenceFieldModel(name, references));
+				} else if (value.isJsonObject() && value.getAsJsonObject().size() == 1 && value.getAsJsonObject().has(NULL)) {
+					entityModel.setValue(nullFieldModel(name, value.getAsJsonObject().get(NULL).getAsString()));
+				} else if (value.isJsonObject() && value.getAsJsonObject().size() == 1 && value.getAsJsonObject().has(DATE)) {
+					entityModel.setValue(new DateFieldModel(name, ZonedDateTime.parse(value.getAsJsonObject().get(DATE).getAsString())));
+				} else if (value.isJsonObject()) {
+					entityModel.setValue(new ReferenceFieldModel(name, deserialize(value, type, context)));
+				} else if (value.getAsJsonPrimitive().isBoolean()) {
+					entityModel.setValue(new BooleanFieldModel(name, value.getAsBoolean()));
+				} else if (value.getAsJsonPrimitive().isNumber() && isDecimal(value.getAsString())) {
+					entityModel.setValue(new FloatFieldModel(name, value.getAsFloat()));
+				} else if (value.getAsJsonPrimitive().isNumber()) {
+					entityModel.setValue(new LongFieldModel(name, value.getAsLong()));
+				} else {
+					entityModel.setValue(new StringFieldModel(name, value.getAsString()));
+				}
+			}
+			return entityModel;
+		}
+
+		private static String nullKind(final FieldModel fieldModel) {
+			if (fieldModel instanceof StringFieldModel) {
+				return STRING;
+			}
+			if (fieldModel instanceof LongFieldModel) {
+				return LONG;
+			}
+			if (fieldModel instanceof BooleanFieldModel) {
+				return BOOLEAN;
+			}
+			if (fieldModel instanceof FloatFieldModel) {
+				return FLOAT;
+			}
+			if (fieldModel instanceof DateFieldModel) {
+				return DATE;
+			}
+			if (fieldModel instanceof MultiReferenceFieldModel) {
+				return MULTI_REFERENCE;
+			}
+			throw new IllegalArgumentException("Unsupported field model " + fieldModel.getClass().getName() + " of field " + fieldModel.getName());
+		}
+
+		private static FieldModel nullFieldModel(final String name, final String kind) {
+			switch (kind) {
+			case STRING:
+				return new StringFieldModel(name, null);
+			case LONG:
+				return new LongFieldModel(name, null);
+			case BOOLEAN:
+				return new BooleanFieldModel(name, null);
+			case FLOAT:
+				return new FloatFieldModel(name, null);
+			case DATE:
+				return new DateFieldModel(name, null);
+			case MULTI_REFERENCE:
+				return new MultiReferenceFieldModel(name, null);
+			default:
+				throw new JsonParseException("Unknown field model '" + kind + "' of null field " + name);
+			}
+		}
+
+		private static boolean isDecimal(final String number) {
+			return number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package eu.emundo.generator.generate;
+
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hpe.adm.nga.sdk.APIMode;
+import com.hpe.adm.nga.sdk.Octane;
+import com.hpe.adm.nga.sdk.Octane.OctaneCustomSettings;
+import com.hpe.adm.nga.sdk.authentication.SimpleClientAuthentication;
+
+/**
+ * <p>
+ * One authenticated connection to a workspace, used for all requests of a
+ * metadata fetch.
+ * </p>
+ * <p>
+ * The client signs in once. The technical preview header is only sent with
+ * the requests wrapped in {@link #withTechnicalPreview(Supplier)}, or with
+ * every request if the technical preview was requested for the whole
+ * generation. The header is evaluated for every request on the calling
+ * thread, so concurrent requests of other threads are not affected.
+ * </p>
+ */
+final class OctaneSession implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OctaneSession.class);
+
+	private final ThreadLocal<Boolean> technicalPreviewRequest = ThreadLocal.withInitial(() -> Boolean.FALSE);
+	private final boolean technicalPreview;
+	private final Octane octane;
+
+	/**
+	 * Signs in to the given workspace
+	 *
+	 * @param clientId
+	 *            The client id
+	 * @param clientSecret
+	 *            The client secret
+	 * @param server
+	 *            The server including the protocol and port
+	 * @param sharedSpace
+	 *            The SS id
+	 * @param workSpace
+	 *            The WS id
+	 * @param doNotValidateCertificate
+	 *            Disables validating server SSL certificates
+	 * @param technicalPreview
+	 *            Send the technical preview header with every request
+	 */
+	OctaneSession(final String clientId, final String clientSecret, final String server, final long sharedSpace, final long workSpace,
+			final boolean doNotValidateCertificate, final boolean technicalPreview) {
+		this.technicalPreview = technicalPreview;
+		final OctaneCustomSettings octaneCustomSettings = new OctaneCustomSettings();
+		octaneCustomSettings.set(OctaneCustomSettings.Setting.TRUST_ALL_CERTS, doNotValidateCertificate);
+		final long startTime = System.currentTimeMillis();
+		this.octane = new Octane.Builder(new SimpleClientAuthentication(clientId, clientSecret, new SessionAPIMode()), null)
+				.sharedSpace(sharedSpace)
+				.workSpace(workSpace)
+				.Server(server)
+				.settings(octaneCustomSettings)
+				.build();
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Signed in to {} {}/{} in {} ms", server, sharedSpace, workSpace, System.currentTimeMillis() - startTime);
+		}
+	}
+
+	Octane getOctane() {
+		return octane;
+	}
+
+	/**
+	 * Sends the requests of the given call with the technical preview header
+	 *
+	 * @param call
+	 *            The requests, executed on the calling thread
+	 * @param <T>
+	 *            The type of the result
+	 * @return The result of the call
+	 */
+	<T> T withTechnicalPreview(final Supplier<T> call) {
+		final Boolean previous = technicalPreviewRequest.get();
+		technicalPreviewRequest.set(Boolean.TRUE);
+		try {
+			return call.get();
+		} finally {
+			technicalPreviewRequest.set(previous);
+		}
+	}
+
+	/**
+	 * Signs out
+	 */
+	@Override
+	public void close() {
+		octane.signOut();
+	}
+
+	/**
+	 * The header is read by the client for every request, its value decides
+	 * whether the request is sent in technical preview
+	 */
+	private final class SessionAPIMode implements APIMode {
+		@Override
+		public String getHeaderValue() {
+			return String.valueOf(technicalPreview || technicalPreviewRequest.get());
+		}
+
+		@Override
+		public String getHeaderKey() {
+			return GeneratorHelper.TECHNICAL_PREVIEW_APIMODE.getHeaderKey();
+		}
+	}
+}
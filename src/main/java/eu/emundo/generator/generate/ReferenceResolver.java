@@ -0,0 +1,69 @@
+package eu.emundo.generator.generate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hpe.adm.nga.sdk.metadata.EntityMetadata;
+import com.hpe.adm.nga.sdk.metadata.FieldMetadata;
+
+/**
+ * <p>
+ * Resolves the targets of reference fields for one generation run.
+ * </p>
+ * <p>
+ * The entity metadata is indexed by name once, and the
+ * {@link GeneratorHelper.ReferenceMetadata} of every reference field is only
+ * computed on first use. The models, their required field constructors and the
+ * setters therefore share one result per field. Can be used from multiple
+ * threads.
+ * </p>
+ */
+public final class ReferenceResolver {
+
+	private final Map<String, EntityMetadata> entityMetadataByName;
+	private final Map<String, Map<String, GeneratorHelper.ReferenceMetadata>> referenceMetadataByEntity = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new resolver
+	 *
+	 * @param entityMetadata
+	 *            The metadata of all entities, which can be the target of a
+	 *            reference
+	 */
+	public ReferenceResolver(final Collection<EntityMetadata> entityMetadata) {
+		final Map<String, EntityMetadata> index = new HashMap<>();
+		entityMetadata.forEach(entityMetadatum -> index.putIfAbsent(entityMetadatum.getName(), entityMetadatum));
+		this.entityMetadataByName = Collections.unmodifiableMap(index);
+	}
+
+	/**
+	 * Returns the metadata of the entity with the given name
+	 *
+	 * @param name
+	 *            The entity name
+	 * @return The metadata or null if there is no such entity
+	 */
+	public EntityMetadata getEntityMetadata(final String name) {
+		return entityMetadataByName.get(name);
+	}
+
+	/**
+	 * Returns the resolved targets of the given field
+	 *
+	 * @param entityName
+	 *            The name of the entity the field belongs to
+	 * @param fieldMetadata
+	 *            The field
+	 * @return The reference metadata or null if the field is no reference
+	 */
+	public GeneratorHelper.ReferenceMetadata getReferenceMetadata(final String entityName, final FieldMetadata fieldMetadata) {
+		if (fieldMetadata.getFieldType() != FieldMetadata.FieldType.Reference) {
+			return null;
+		}
+		return referenceMetadataByEntity.computeIfAbsent(entityName, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(fieldMetadata.getName(), k -> GeneratorHelper.getAllowedSuperTypesForReference(fieldMetadata, entityMetadataByName));
+	}
+}
@@ -32,25 +32,38 @@ public class SLF4JLogChute implements LogChute {
 	}
 
 	/**
+	 * Velocity does not check the level itself, the messages of disabled
+	 * levels are dropped here before they reach the logger
+	 *
 	 * @see LogChute#log(int, String)
 	 */
 	public void log(int level, String message) {
 		switch (level) {
 		case LogChute.WARN_ID:
-			logger.warn(message);
+			if (logger.isWarnEnabled()) {
+				logger.warn(message);
+			}
 			break;
 		case LogChute.INFO_ID:
-			logger.info(message);
+			if (logger.isInfoEnabled()) {
+				logger.info(message);
+			}
 			break;
 		case LogChute.TRACE_ID:
-			logger.trace(message);
+			if (logger.isTraceEnabled()) {
+				logger.trace(message);
+			}
 			break;
 		case LogChute.ERROR_ID:
-			logger.error(message);
+			if (logger.isErrorEnabled()) {
+				logger.error(message);
+			}
 			break;
 		case LogChute.DEBUG_ID:
 		default:
-			logger.debug(message);
+			if (logger.isDebugEnabled()) {
+				logger.debug(message);
+			}
 			break;
 		}
 	}
@@ -61,20 +74,30 @@ public class SLF4JLogChute implements LogChute {
 	public void log(int level, String message, Throwable t) {
 		switch (level) {
 		case LogChute.WARN_ID:
-			logger.warn(message, t);
+			if (logger.isWarnEnabled()) {
+				logger.warn(message, t);
+			}
 			break;
 		case LogChute.INFO_ID:
-			logger.info(message, t);
+			if (logger.isInfoEnabled()) {
+				logger.info(message, t);
+			}
 			break;
 		case LogChute.TRACE_ID:
-			logger.trace(message, t);
+			if (logger.isTraceEnabled()) {
+				logger.trace(message, t);
+			}
 			break;
 		case LogChute.ERROR_ID:
-			logger.error(message, t);
+			if (logger.isErrorEnabled()) {
+				logger.error(message, t);
+			}
 			break;
 		case LogChute.DEBUG_ID:
 		default:
-			logger.debug(message, t);
+			if (logger.isDebugEnabled()) {
+				logger.debug(message, t);
+			}
 			break;
 		}
 	}
@@ -1,8 +1,11 @@
 package eu.emundo.generator.generate;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -11,7 +14,8 @@ import java.util.stream.Collectors;
 public final class SortHelper {
 
 	/**
-	 * Sorts RequiredFields by given Fieldname ASC
+	 * Sorts RequiredFields by given Fieldname ASC. The sort key of every field
+	 * list is computed once before sorting
 	 *
 	 * @param requiredFields
 	 *            Collection of FieldLists with Array of field data
@@ -20,10 +24,20 @@ public final class SortHelper {
 	 * @return Sorted List
 	 */
 	public static List<List<String[]>> sortRequiredFieldsByFieldName(final Collection<List<String[]>> requiredFields, final String fieldName) {
-		return requiredFields.stream()
-				.sorted(Comparator.comparing(fieldList -> fieldList.stream().map(fields -> String.join("", fields)).sorted().collect(Collectors.joining())
+		final List<Map.Entry<String, List<String[]>>> keyedFieldLists = new ArrayList<>(requiredFields.size());
+		for (final List<String[]> fieldList : requiredFields) {
+			keyedFieldLists.add(new AbstractMap.SimpleImmutableEntry<>(sortKey(fieldList), fieldList));
+		}
+		keyedFieldLists.sort(Map.Entry.comparingByKey());
+		return keyedFieldLists.stream().map(Map.Entry::getValue).collect(Collectors.toList());
+	}
 
-				))
-				.collect(Collectors.toList());
+	private static String sortKey(final List<String[]> fieldList) {
+		final String[] joinedFields = new String[fieldList.size()];
+		for (int i = 0; i < joinedFields.length; ++i) {
+			joinedFields[i] = String.join("", fieldList.get(i));
+		}
+		Arrays.sort(joinedFields);
+		return String.join("", joinedFields);
 	}
 }
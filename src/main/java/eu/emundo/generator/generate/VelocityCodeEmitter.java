@@ -0,0 +1,43 @@
+package eu.emundo.generator.generate;
+
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+
+/**
+ * <p>
+ * Renders the Velocity templates. The templates are parsed once and shared
+ * between threads, every file gets its own context.
+ * </p>
+ */
+public final class VelocityCodeEmitter implements CodeEmitter {
+
+	private final Map<Kind, Template> templates = new EnumMap<>(Kind.class);
+
+	public VelocityCodeEmitter() {
+		final VelocityEngine velocityEngine = new VelocityEngine();
+		velocityEngine.setProperty("resource.loader", "class");
+		velocityEngine.setProperty("class.resource.loader.description", "Velocity Classpath Resource Loader");
+		velocityEngine.setProperty(VelocityEngine.RUNTIME_LOG_LOGSYSTEM, new SLF4JLogChute());
+		velocityEngine.setProperty("class.resource.loader.class", "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+
+		velocityEngine.init();
+
+		for (final Kind kind : Kind.values()) {
+			templates.put(kind, velocityEngine.getTemplate(kind.getTemplateName()));
+		}
+	}
+
+	@Override
+	public void emit(final Kind kind, final Map<String, Object> context, final Writer writer) {
+		final VelocityContext velocityContext = new VelocityContext(context);
+		velocityContext.put("GeneratorHelper", GeneratorHelper.class);
+		velocityContext.put("SortHelper", SortHelper.class);
+		velocityContext.put("helper", GeneratorHelper.class);
+		templates.get(kind).merge(velocityContext, writer);
+	}
+}
@@ -0,0 +1,61 @@
+package eu.emundo.gradle.octane.generator;
+
+import java.io.IOException;
+
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import eu.emundo.generator.generate.CodeEmitter;
+import eu.emundo.generator.generate.GenerateModels;
+
+/**
+ * Runs the generation in a Gradle worker. Written in Java so that an isolated
+ * worker does not need the Groovy runtime on its classpath
+ */
+public abstract class GenerateModelsWorkAction implements WorkAction<GenerateModelsWorkAction.Parameters> {
+
+	public interface Parameters extends WorkParameters {
+		RegularFileProperty getSnapshotFile();
+
+		Property<String> getIgnoreListIds();
+
+		Property<Integer> getRenderParallelism();
+
+		Property<Integer> getMaxRequiredFieldConstructors();
+
+		Property<String> getEmitter();
+
+		Property<Boolean> getFlatModels();
+
+		DirectoryProperty getGeneratedSourcesDirectory();
+
+		RegularFileProperty getGeneratedSourcesArchive();
+
+		DirectoryProperty getReportDirectory();
+
+		Property<Boolean> getQuiet();
+	}
+
+	@Override
+	public void execute() {
+		final Parameters parameters = getParameters();
+		try {
+			new GenerateModels(parameters.getGeneratedSourcesDirectory().get().getAsFile(), parameters.getIgnoreListIds().getOrNull())
+					.setRenderParallelism(parameters.getRenderParallelism().getOrElse(1))
+					.setMaxRequiredFieldConstructors(
+							parameters.getMaxRequiredFieldConstructors().getOrElse(GenerateModels.DEFAULT_MAX_REQUIRED_FIELD_CONSTRUCTORS))
+					.setEmitter(parameters.getEmitter().getOrElse(CodeEmitter.VELOCITY))
+					.setFlatModels(parameters.getFlatModels().getOrElse(false))
+					.setOutputArchive(parameters.getGeneratedSourcesArchive().isPresent() ? parameters.getGeneratedSourcesArchive().get().getAsFile() : null)
+					.setReportDirectory(parameters.getReportDirectory().isPresent() ? parameters.getReportDirectory().get().getAsFile() : null)
+					.setQuiet(parameters.getQuiet().getOrElse(false))
+					.generate(parameters.getSnapshotFile().get().getAsFile());
+		} catch (IOException e) {
+			throw new InvalidUserDataException("Problem generating entities", e);
+		}
+	}
+}
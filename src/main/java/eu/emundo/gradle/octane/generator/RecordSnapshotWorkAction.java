@@ -0,0 +1,108 @@
+package eu.emundo.gradle.octane.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import com.hpe.adm.nga.sdk.exception.OctaneException;
+
+import eu.emundo.generator.generate.GenerationMetrics;
+import eu.emundo.generator.generate.MetadataCache;
+import eu.emundo.generator.generate.MetadataFetcher;
+import eu.emundo.generator.generate.MetadataSnapshot;
+
+/**
+ * Fetches the metadata and writes the snapshot in a Gradle worker. Written in
+ * Java so that an isolated worker does not need the Groovy runtime on its
+ * classpath
+ */
+public abstract class RecordSnapshotWorkAction implements WorkAction<RecordSnapshotWorkAction.Parameters> {
+
+	public interface Parameters extends WorkParameters {
+		Property<String> getServer();
+
+		Property<Long> getSharedSpace();
+
+		Property<Long> getWorkSpace();
+
+		ListProperty<Long> getWorkSpaces();
+
+		Property<String> getClientId();
+
+		Property<String> getClientSecret();
+
+		Property<Boolean> getDoNotValidateCertificate();
+
+		Property<Boolean> getTechPreview();
+
+		Property<String> getIgnoreListIds();
+
+		Property<Boolean> getBulkListFetch();
+
+		Property<Integer> getFetchParallelism();
+
+		Property<Integer> getMetadataCacheTtlMinutes();
+
+		DirectoryProperty getMetadataCacheDirectory();
+
+		Property<Boolean> getRefreshMetadata();
+
+		RegularFileProperty getSnapshotFile();
+
+		DirectoryProperty getReportDirectory();
+
+		Property<String> getReportName();
+
+		Property<Boolean> getQuiet();
+	}
+
+	@Override
+	public void execute() {
+		final Parameters parameters = getParameters();
+		final GenerationMetrics metrics = new GenerationMetrics();
+		final MetadataFetcher metadataFetcher = new MetadataFetcher(parameters.getIgnoreListIds().getOrNull()).setMetrics(metrics)
+				.setBulkListFetch(parameters.getBulkListFetch().getOrElse(false))
+				.setFetchParallelism(parameters.getFetchParallelism().getOrElse(1))
+				.setQuiet(parameters.getQuiet().getOrElse(false));
+		if (parameters.getMetadataCacheTtlMinutes().getOrElse(0) > 0) {
+			metadataFetcher.setMetadataCache(new MetadataCache(parameters.getMetadataCacheDirectory().get().getAsFile(),
+					TimeUnit.MINUTES.toMillis(parameters.getMetadataCacheTtlMinutes().get())), parameters.getRefreshMetadata().getOrElse(false));
+		}
+		try {
+			final List<Long> workSpaces = parameters.getWorkSpaces().getOrElse(Collections.emptyList());
+			final MetadataSnapshot snapshot;
+			if (workSpaces.isEmpty()) {
+				snapshot = metadataFetcher.fetch(parameters.getClientId().getOrNull(), parameters.getClientSecret().getOrNull(), parameters.getServer().get(),
+						parameters.getSharedSpace().get(), parameters.getWorkSpace().get(), parameters.getDoNotValidateCertificate().get(),
+						parameters.getTechPreview().get());
+			} else {
+				snapshot = metadataFetcher.fetch(parameters.getClientId().getOrNull(), parameters.getClientSecret().getOrNull(), parameters.getServer().get(),
+						parameters.getSharedSpace().get(), workSpaces, parameters.getDoNotValidateCertificate().get(), parameters.getTechPreview().get());
+			}
+			final File snapshotFile = parameters.getSnapshotFile().get().getAsFile();
+			snapshot.write(snapshotFile);
+			metrics.add(GenerationMetrics.SNAPSHOT_BYTES, snapshotFile.length());
+			if (parameters.getReportDirectory().isPresent()) {
+				metrics.writeReport(parameters.getReportDirectory().get().getAsFile(), parameters.getReportName().getOrElse("fetchOctaneMetadata"));
+			} else {
+				metrics.logSummary();
+			}
+		} catch (IOException | GeneralSecurityException e) {
+			throw new InvalidUserDataException("Problem recording snapshot", e);
+		} catch (OctaneException e) {
+			throw new GradleException("Problem getting Octane data", e);
+		}
+	}
+}
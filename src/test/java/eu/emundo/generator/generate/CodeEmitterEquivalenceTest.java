@@ -0,0 +1,89 @@
+package eu.emundo.generator.generate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Renders the synthetic metadata with the Velocity templates and with the
+ * {@link JavaCodeEmitter} and compares the generated sources, ignoring
+ * differences in whitespace
+ */
+public class CodeEmitterEquivalenceTest {
+
+	private static final int SYNTHETIC_ENTITY_COUNT = 12;
+
+	/**
+	 * Low enough that some synthetic entities get builders instead of required
+	 * field constructors
+	 */
+	private static final int MAX_REQUIRED_FIELD_CONSTRUCTORS = 4;
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void emittersGenerateTheSameModels() throws IOException {
+		assertSameSources(false);
+	}
+
+	@Test
+	public void emittersGenerateTheSameFlatModels() throws IOException {
+		assertSameSources(true);
+	}
+
+	private void assertSameSources(final boolean flatModels) throws IOException {
+		final Path velocityDirectory = generate(CodeEmitter.VELOCITY, flatModels);
+		final Path javaDirectory = generate(CodeEmitter.JAVA, flatModels);
+
+		final List<Path> velocitySources = sources(velocityDirectory);
+		assertFalse("no sources generated", velocitySources.isEmpty());
+		assertEquals(velocitySources, sources(javaDirectory));
+		for (final Path source : velocitySources) {
+			assertEquals(source.toString(), normalize(velocityDirectory.resolve(source)), normalize(javaDirectory.resolve(source)));
+		}
+	}
+
+	private Path generate(final String emitter, final boolean flatModels) throws IOException {
+		final File outputDirectory = temporaryFolder.newFolder(emitter + (flatModels ? "-flat" : ""));
+		new GenerateModels(outputDirectory, null)
+				.setEmitter(emitter)
+				.setFlatModels(flatModels)
+				.setMaxRequiredFieldConstructors(MAX_REQUIRED_FIELD_CONSTRUCTORS)
+				.setQuiet(true)
+				.generate(SyntheticMetadata.create(SYNTHETIC_ENTITY_COUNT));
+		return outputDirectory.toPath();
+	}
+
+	/**
+	 * @return the generated sources relative to the directory, sorted
+	 */
+	private static List<Path> sources(final Path directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			return paths.filter(path -> path.toString().endsWith(".java")).map(directory::relativize).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Collapses whitespace and drops it next to anything which is not part of
+	 * an identifier or literal, so that only the tokens are compared
+	 */
+	private static String normalize(final Path source) throws IOException {
+		return new String(Files.readAllBytes(source), StandardCharsets.UTF_8)
+				.replaceAll("\\s+", " ")
+				.replaceAll(" ?([^\\w$\" ]) ?", "$1")
+				.trim();
+	}
+}
@@ -0,0 +1,304 @@
+package eu.emundo.generator.generate;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Compares the identifier mangling of {@link GeneratorHelper} with the regex
+ * based implementation it replaced, which is copied below, on a fixed corpus
+ * under the root, Turkish and German locales.
+ */
+public class GeneratorHelperNamesTest {
+
+	private static final Locale DEFAULT_LOCALE = Locale.getDefault();
+
+	private static final List<Locale> LOCALES = Arrays.asList(Locale.ROOT, new Locale("tr", "TR"), Locale.GERMANY);
+
+	private static final List<String> CORPUS = Arrays.asList(
+			"", "_", "__", "___", "a", "A", "id", "ID", "name", "user_tags", "_leading", "__double_leading", "trailing_", "trailing__",
+			"double__underscore", "a_b_c", "_a_", "release_date", "1st_phase", "42", "4_ever", "_1", "class", "default", "package_", "int",
+			"in_progress", "In Progress", "IN-PROGRESS", "i_i_i", "I_I_I", "istanbul", "Istanbul", "\u0131nd\u0131s", "\u0130stanbul", "stra\u00dfe",
+			"\u00dfeite", "gro\u00df_\u00dfeite", "caf\u00e9", "\u00c9t\u00e9", "\u00e4rger_\u00fcber_\u00f6l", "\u00c4rger \u00dcber \u00d6l",
+			"na\u00efve r\u00e9sum\u00e9", "\u0152uvre", "\u00de\u00f3r", "\u00f1and\u00fa", "\u00ff_\u0178", "\u01c5ungla", "\u01c6_x",
+			"\ud83d\ude00", "smile_\ud83d\ude00_face", "\ud835\udc00_bold", "\ud801\udc28_deseret", "a\ud801\udc00b", "\u0394elta_\u03c9mega",
+			"\u0444\u0438\u043b\u044c\u0442\u0440", "\u65e5\u672c_\u8a9e", "tab\tand\nnewline", "dots.and-dashes", "$dollar", "x$y", "  ", " a b ",
+			"already_UPPER_Case", "mixedCase_field", "\u00c0\u00c1\u00c2\u00c3\u00c4\u00c5\u00c6\u00c7", "\u00bf\u00c0", "1\u00e4", "\u0660_arabic_digit");
+
+	@After
+	public void restoreLocale() {
+		Locale.setDefault(DEFAULT_LOCALE);
+		GeneratorHelper.clearNameCaches();
+	}
+
+	@Test
+	public void camelCaseFieldNameIsUnchanged() {
+		for (final Locale locale : LOCALES) {
+			useLocale(locale);
+			for (final String name : CORPUS) {
+				assertEquals(describe(name, locale), oldCamelCaseFieldName(name, true), GeneratorHelper.camelCaseFieldName(name));
+				assertEquals(describe(name, locale), oldCamelCaseFieldName(name, false), GeneratorHelper.camelCaseFieldName(name, false));
+			}
+		}
+	}
+
+	@Test
+	public void toCamelCaseIsUnchanged() {
+		for (final Locale locale : LOCALES) {
+			useLocale(locale);
+			for (final String name : CORPUS) {
+				assertEquals(describe(name, locale), oldToCamelCase(name, true), GeneratorHelper.toCamelCase(name, true));
+				assertEquals(describe(name, locale), oldToCamelCase(name, false), GeneratorHelper.toCamelCase(name, false));
+			}
+		}
+	}
+
+	@Test
+	public void appendFirstLetterIsUnchanged() {
+		for (final Locale locale : LOCALES) {
+			useLocale(locale);
+			for (final char letter : letters()) {
+				final String word = String.valueOf(letter);
+				final StringBuilder upperCase = new StringBuilder();
+				GeneratorHelper.appendFirstLetter(upperCase, letter, true);
+				assertEquals(describe(word, locale), word.substring(0, 1).toUpperCase(), upperCase.toString());
+				final StringBuilder lowerCase = new StringBuilder();
+				GeneratorHelper.appendFirstLetter(lowerCase, letter, false);
+				assertEquals(describe(word, locale), word.substring(0, 1).toLowerCase(), lowerCase.toString());
+			}
+		}
+	}
+
+	@Test
+	public void enumConstantNameIsUnchanged() {
+		for (final Locale locale : LOCALES) {
+			useLocale(locale);
+			for (final String name : CORPUS) {
+				assertEquals(describe(name, locale), oldEnumConstantName(name), GeneratorHelper.enumConstantName(name));
+			}
+		}
+	}
+
+	@Test
+	public void removeAccentsIsUnchanged() {
+		for (final String name : CORPUS) {
+			assertEquals(describe(name, Locale.ROOT), removeAccents(name), GeneratorHelper.removeAccents(name));
+		}
+		for (final char letter : letters()) {
+			final String word = "x" + letter + "y";
+			assertEquals(describe(word, Locale.ROOT), removeAccents(word), GeneratorHelper.removeAccents(word));
+		}
+	}
+
+	@Test
+	public void handleSingeUnderscoreEnumIsUnchanged() {
+		for (final String name : Arrays.asList("", "_", "__", "___", "_A", "A_", "_A_", "A")) {
+			assertEquals(describe(name, Locale.ROOT), oldHandleSingeUnderscoreEnum(name), GeneratorHelper.handleSingeUnderscoreEnum(name));
+		}
+	}
+
+	private static void useLocale(final Locale locale) {
+		Locale.setDefault(locale);
+		// the names are cached, so they have to be computed again for the locale
+		GeneratorHelper.clearNameCaches();
+	}
+
+	/**
+	 * The ASCII and Latin characters, some Greek and Cyrillic ones and the
+	 * dotless i and dotted I
+	 */
+	private static List<Character> letters() {
+		final List<Character> letters = new ArrayList<>();
+		for (char letter = 0; letter < 0x250; letter++) {
+			letters.add(letter);
+		}
+		for (char letter = 0x370; letter < 0x450; letter++) {
+			letters.add(letter);
+		}
+		letters.add('\u1e9e');
+		letters.add('\ud83d');
+		return letters;
+	}
+
+	private static String describe(final String name, final Locale locale) {
+		return "'" + name + "' in locale '" + locale + "'";
+	}
+
+	// The implementation replaced by GeneratorHelper
+
+	private static String oldCamelCaseFieldName(final String fieldName, final boolean theFirstLetterIsCapital) {
+		return GeneratorHelper.getSanitisedFieldName(oldToCamelCase(fieldName, theFirstLetterIsCapital));
+	}
+
+	private static String oldToCamelCase(final String fieldName, final boolean theFirstLetterIsCapital) {
+		final StringBuffer stringBuffer = new StringBuffer();
+		final String[] splitFields = fieldName.split("_");
+		int wordCounter = 0;
+		for (final String splitField : splitFields) {
+			wordCounter++;
+			try {
+				if (wordCounter > 1 || theFirstLetterIsCapital) {
+					stringBuffer.append(splitField.substring(0, 1).toUpperCase());
+				} else {
+					stringBuffer.append(splitField.substring(0, 1).toLowerCase());
+				}
+				stringBuffer.append(splitField.substring(1));
+			} catch (StringIndexOutOfBoundsException e) {
+				// we do nothing here and move to the next wordcounter
+			}
+		}
+		return stringBuffer.toString();
+	}
+
+	private static String oldEnumConstantName(final String name) {
+		return oldHandleSingeUnderscoreEnum(removeAccents(name)
+				.replaceAll(" ", "_")
+				.replaceAll("^\\d", "_$0")
+				.replaceAll("\\W", "_")
+				.toUpperCase());
+	}
+
+	private static String oldHandleSingeUnderscoreEnum(final String input) {
+		if (input.replaceAll("\\_", "").length() == 0) {
+			return "_NONE";
+		}
+		return input;
+	}
+
+	private static String removeAccents(final String input) {
+		final StringBuffer result = new StringBuffer();
+		for (int i = 0; i < input.length(); i++) {
+			switch (input.charAt(i)) {
+			case '\u00C0': // À
+			case '\u00C1': // Á
+			case '\u00C2': // Â
+			case '\u00C3': // Ã
+			case '\u00C5': // Å
+				result.append("A");
+				break;
+			case '\u00C4': // Ä
+			case '\u00C6': // Æ
+				result.append("AE");
+				break;
+			case '\u00C7': // Ç
+				result.append("C");
+				break;
+			case '\u00C8': // È
+			case '\u00C9': // É
+			case '\u00CA': // Ê
+			case '\u00CB': // Ë
+				result.append("E");
+				break;
+			case '\u00CC': // Ì
+			case '\u00CD': // Í
+			case '\u00CE': // Î
+			case '\u00CF': // Ï
+				result.append("I");
+				break;
+			case '\u00D0': // Ð
+				result.append("D");
+				break;
+			case '\u00D1': // Ñ
+				result.append("N");
+				break;
+			case '\u00D2': // Ò
+			case '\u00D3': // Ó
+			case '\u00D4': // Ô
+			case '\u00D5': // Õ
+			case '\u00D8': // Ø
+				result.append("O");
+				break;
+			case '\u00D6': // Ö
+			case '\u0152': // Œ
+				result.append("OE");
+				break;
+			case '\u00DE': // Þ
+				result.append("TH");
+				break;
+			case '\u00D9': // Ù
+			case '\u00DA': // Ú
+			case '\u00DB': // Û
+				result.append("U");
+				break;
+			case '\u00DC': // Ü
+				result.append("UE");
+				break;
+			case '\u00DD': // Ý
+			case '\u0178': // Ÿ
+				result.append("Y");
+				break;
+			case '\u00E0': // à
+			case '\u00E1': // á
+			case '\u00E2': // â
+			case '\u00E3': // ã
+			case '\u00E5': // å
+				result.append("a");
+				break;
+			case '\u00E4': // ä
+			case '\u00E6': // æ
+				result.append("ae");
+				break;
+			case '\u00E7': // ç
+				result.append("c");
+				break;
+			case '\u00E8': // è
+			case '\u00E9': // é
+			case '\u00EA': // ê
+			case '\u00EB': // ë
+				result.append("e");
+				break;
+			case '\u00EC': // ì
+			case '\u00ED': // í
+			case '\u00EE': // î
+			case '\u00EF': // ï
+				result.append("i");
+				break;
+			case '\u00F0': // ð
+				result.append("d");
+				break;
+			case '\u00F1': // ñ
+				result.append("n");
+				break;
+			case '\u00F2': // ò
+			case '\u00F3': // ó
+			case '\u00F4': // ô
+			case '\u00F5': // õ
+			case '\u00F8': // ø
+				result.append("o");
+				break;
+			case '\u00F6': // ö
+			case '\u0153': // œ
+				result.append("oe");
+				break;
+			case '\u00DF': // ß
+				result.append("ss");
+				break;
+			case '\u00FE': // þ
+				result.append("th");
+				break;
+			case '\u00F9': // ù
+			case '\u00FA': // ú
+			case '\u00FB': // û
+				result.append("u");
+				break;
+			case '\u00FC': // ü
+				result.append("ue");
+				break;
+			case '\u00FD': // ý
+			case '\u00FF': // ÿ
+				result.append("y");
+				break;
+			default:
+				result.append(input.charAt(i));
+				break;
+			}
+		}
+		return result.toString();
+	}
+}
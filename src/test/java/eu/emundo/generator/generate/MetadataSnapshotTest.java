@@ -0,0 +1,127 @@
+package eu.emundo.generator.generate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.hpe.adm.nga.sdk.model.BooleanFieldModel;
+import com.hpe.adm.nga.sdk.model.DateFieldModel;
+import com.hpe.adm.nga.sdk.model.EntityModel;
+import com.hpe.adm.nga.sdk.model.FieldModel;
+import com.hpe.adm.nga.sdk.model.FloatFieldModel;
+import com.hpe.adm.nga.sdk.model.LongFieldModel;
+import com.hpe.adm.nga.sdk.model.MultiReferenceFieldModel;
+import com.hpe.adm.nga.sdk.model.ReferenceFieldModel;
+import com.hpe.adm.nga.sdk.model.StringFieldModel;
+
+/**
+ * Writes snapshots and reads them again, checking that every field is kept
+ * with its field model, including the fields without a value
+ */
+public class MetadataSnapshotTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void keepsFieldsWithValues() throws IOException {
+		final EntityModel parent = new EntityModel();
+		parent.setValue(new StringFieldModel("id", "1000"));
+		parent.setValue(new StringFieldModel("type", "list_node"));
+		final EntityModel listNode = new EntityModel();
+		listNode.setValue(new StringFieldModel("id", "1001"));
+		listNode.setValue(new StringFieldModel("name", "High"));
+		listNode.setValue(new LongFieldModel("version_stamp", 3L));
+		listNode.setValue(new BooleanFieldModel("activity_level", true));
+		listNode.setValue(new FloatFieldModel("weight", 1.5f));
+		listNode.setValue(new DateFieldModel("creation_time", ZonedDateTime.parse("2020-01-02T03:04:05Z")));
+		listNode.setValue(new ReferenceFieldModel("list_root", parent));
+		listNode.setValue(new MultiReferenceFieldModel("children", Collections.singletonList(parent)));
+
+		final EntityModel readListNode = roundTrip(listNode);
+
+		assertFields(listNode, readListNode);
+		assertEquals("High", readListNode.getValue("name").getValue());
+		assertEquals(3L, readListNode.getValue("version_stamp").getValue());
+		assertEquals(Boolean.TRUE, readListNode.getValue("activity_level").getValue());
+		assertEquals(1.5f, (Float) readListNode.getValue("weight").getValue(), 0f);
+		assertEquals(ZonedDateTime.parse("2020-01-02T03:04:05Z"), readListNode.getValue("creation_time").getValue());
+		assertEquals("1000", ((EntityModel) readListNode.getValue("list_root").getValue()).getId());
+		assertEquals(1, ((Collection<?>) readListNode.getValue("children").getValue()).size());
+	}
+
+	@Test
+	public void keepsFieldsWithoutValues() throws IOException {
+		final EntityModel listNode = new EntityModel();
+		listNode.setValue(new StringFieldModel("id", "1001"));
+		listNode.setValue(new StringFieldModel("name", null));
+		listNode.setValue(new LongFieldModel("version_stamp", null));
+		listNode.setValue(new BooleanFieldModel("activity_level", null));
+		listNode.setValue(new FloatFieldModel("weight", null));
+		listNode.setValue(new DateFieldModel("creation_time", null));
+		listNode.setValue(new ReferenceFieldModel("list_root", null));
+		listNode.setValue(new MultiReferenceFieldModel("children", null));
+
+		final EntityModel readListNode = roundTrip(listNode);
+
+		assertFields(listNode, readListNode);
+		for (final FieldModel fieldModel : listNode.getValues()) {
+			if (!"id".equals(fieldModel.getName())) {
+				assertNull(fieldModel.getName(), readListNode.getValue(fieldModel.getName()).getValue());
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherVersions() throws IOException {
+		final File file = temporaryFolder.newFile();
+		snapshot(new EntityModel()).write(file);
+		final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		Files.write(file.toPath(), content.replaceFirst("\"version\":\\s*" + MetadataSnapshot.VERSION, "\"version\":1").getBytes(StandardCharsets.UTF_8));
+		MetadataSnapshot.read(file);
+	}
+
+	private EntityModel roundTrip(final EntityModel listNode) throws IOException {
+		final File file = temporaryFolder.newFile();
+		snapshot(listNode).write(file);
+		final Collection<EntityModel> listNodes = MetadataSnapshot.read(file).getListNodes();
+		assertEquals(1, listNodes.size());
+		return listNodes.iterator().next();
+	}
+
+	private static MetadataSnapshot snapshot(final EntityModel listNode) {
+		return new MetadataSnapshot(Collections.emptyList(), Collections.emptyMap(), Collections.emptyList(), Arrays.asList(listNode),
+				Collections.emptyList());
+	}
+
+	/**
+	 * Asserts that both models have the same fields with the same field models
+	 */
+	private static void assertFields(final EntityModel expected, final EntityModel actual) {
+		assertEquals(fieldModelClasses(expected), fieldModelClasses(actual));
+		for (final FieldModel fieldModel : expected.getValues()) {
+			assertNotNull(fieldModel.getName() + " missing", actual.getValue(fieldModel.getName()));
+		}
+	}
+
+	private static Map<String, Class<?>> fieldModelClasses(final EntityModel entityModel) {
+		final Map<String, Class<?>> fieldModelClasses = new TreeMap<>();
+		entityModel.getValues().forEach(fieldModel -> fieldModelClasses.put(fieldModel.getName(), fieldModel.getClass()));
+		return fieldModelClasses;
+	}
+}
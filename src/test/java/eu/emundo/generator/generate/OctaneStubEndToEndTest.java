@@ -0,0 +1,135 @@
+package eu.emundo.generator.generate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Fetches a synthetic schema from the {@link OctaneStubServer} and generates
+ * its models, checking the requests sent per endpoint and that the generated
+ * sources compile
+ */
+public class OctaneStubEndToEndTest {
+
+	private static final int SYNTHETIC_ENTITY_COUNT = 10;
+	private static final long SHARED_SPACE = 1001;
+	private static final long WORK_SPACE = 1002;
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private OctaneStubServer stubServer;
+
+	@Before
+	public void startStub() throws IOException {
+		stubServer = OctaneStubServer.synthetic(SYNTHETIC_ENTITY_COUNT).start(0);
+	}
+
+	@After
+	public void stopStub() {
+		stubServer.close();
+	}
+
+	@Test
+	public void fetchesOneListAfterTheOther() throws IOException, GeneralSecurityException {
+		final MetadataSnapshot snapshot = fetch(new MetadataFetcher(null));
+
+		assertCommonRequests(snapshot);
+		// the root nodes and every list
+		assertEquals(1 + snapshot.getListRootNodes().size(), stubServer.getRequestCount(OctaneStubServer.LIST_NODES));
+
+		assertGenerated(generate(snapshot));
+	}
+
+	@Test
+	public void fetchesAllListsInBulk() throws IOException, GeneralSecurityException {
+		final MetadataSnapshot snapshot = fetch(new MetadataFetcher(null).setBulkListFetch(true).setFetchParallelism(4));
+
+		assertCommonRequests(snapshot);
+		// the root nodes and one page of list nodes
+		assertEquals(2, stubServer.getRequestCount(OctaneStubServer.LIST_NODES));
+
+		assertGenerated(generate(snapshot));
+	}
+
+	/**
+	 * Compiles the sources against the classpath of the test, skipped if no
+	 * compiler is available or the JDK lacks javax.annotation.Generated
+	 */
+	@Test
+	public void generatedModelsCompile() throws IOException, GeneralSecurityException {
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assumeNotNull(compiler);
+		assumeTrue("javax.annotation.Generated is not available", isAvailable("javax.annotation.Generated"));
+
+		final Path outputDirectory = generate(fetch(new MetadataFetcher(null)));
+		final List<String> arguments = new ArrayList<>(Arrays.asList("-proc:none", "-nowarn", "-d", temporaryFolder.newFolder().getPath(), "-classpath",
+				System.getProperty("java.class.path")));
+		try (Stream<Path> paths = Files.walk(outputDirectory)) {
+			arguments.addAll(paths.map(Path::toString).filter(path -> path.endsWith(".java")).collect(Collectors.toList()));
+		}
+		assertEquals("the generated sources do not compile", 0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+	}
+
+	private MetadataSnapshot fetch(final MetadataFetcher metadataFetcher) throws IOException, GeneralSecurityException {
+		return metadataFetcher.setQuiet(true).fetch("client", "secret", stubServer.getServer(), SHARED_SPACE, WORK_SPACE, false, false);
+	}
+
+	private void assertCommonRequests(final MetadataSnapshot snapshot) {
+		assertEquals(1, stubServer.getRequestCount(OctaneStubServer.SIGN_IN));
+		assertEquals(1, stubServer.getRequestCount(OctaneStubServer.SIGN_OUT));
+		// work_item_root in technical preview and all other entities
+		assertEquals(2, stubServer.getRequestCount(OctaneStubServer.ENTITY_METADATA));
+		// one request per entity, including work_item_root
+		assertEquals(snapshot.getFieldMetadata().size(), stubServer.getRequestCount(OctaneStubServer.FIELD_METADATA));
+		assertEquals(1, stubServer.getRequestCount(OctaneStubServer.PHASES));
+		assertEquals(0, stubServer.getRequestCount(OctaneStubServer.UNKNOWN));
+		assertFalse("no list nodes fetched", snapshot.getListNodes().isEmpty());
+	}
+
+	private Path generate(final MetadataSnapshot snapshot) throws IOException {
+		final File outputDirectory = temporaryFolder.newFolder();
+		new GenerateModels(outputDirectory, null).setQuiet(true).generate(snapshot);
+		return outputDirectory.toPath();
+	}
+
+	private static void assertGenerated(final Path outputDirectory) {
+		final Path packageDirectory = outputDirectory.resolve("com/hpe/adm/nga/sdk");
+		for (final String source : Arrays.asList("model/DefectEntityModel.java", "model/StoryEntityModel.java", "model/FieldDescriptor.java",
+				"model/EntityTypeRegistry.java", "model/ImmutableReference.java", "entities/DefectEntityList.java", "enums/Phases.java",
+				"enums/lists/SEVERITY.java")) {
+			assertTrue(source + " not generated", Files.isRegularFile(packageDirectory.resolve(source)));
+		}
+	}
+
+	private static boolean isAvailable(final String className) {
+		try {
+			Class.forName(className);
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+}